@@ -0,0 +1,37 @@
+package com.example.config;
+
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * The broker's session handler, registering the buffering decorator it puts
+ * around every session with StompSessionBuffers. That decorator is where
+ * messages queue up while a slow client is being written to.
+ */
+class BufferedSubProtocolWebSocketHandler extends SubProtocolWebSocketHandler {
+    private final StompSessionBuffers stompSessionBuffers;
+
+    BufferedSubProtocolWebSocketHandler(MessageChannel clientInboundChannel,
+                                        SubscribableChannel clientOutboundChannel,
+                                        StompSessionBuffers stompSessionBuffers) {
+        super(clientInboundChannel, clientOutboundChannel);
+        this.stompSessionBuffers = stompSessionBuffers;
+    }
+
+    @Override
+    protected WebSocketSession decorateSession(WebSocketSession session) {
+        ConcurrentWebSocketSessionDecorator buffered = (ConcurrentWebSocketSessionDecorator) super.decorateSession(session);
+        stompSessionBuffers.register(buffered);
+        return buffered;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        stompSessionBuffers.unregister(session.getId());
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
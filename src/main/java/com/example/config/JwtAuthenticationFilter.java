@@ -1,7 +1,8 @@
 package com.example.config;
 
-import com.example.model.User;
-import com.example.repository.UserRepository;
+import com.example.service.PrincipalCache;
+import com.example.service.PrincipalSnapshot;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,7 +22,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
     @Autowired
-    private UserRepository userRepository;
+    private PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -31,14 +32,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             token = header.substring(7);
         }
-        if (token != null && jwtUtil.validateToken(token)) {
-            String email = jwtUtil.getEmailFromToken(token);
-            User user = userRepository.findByEmail(email).orElse(null);
+        Claims claims = token != null ? jwtUtil.parseClaims(token) : null;
+        if (claims != null) {
+            PrincipalSnapshot user = principalCache.get(claims.getSubject());
             if (user != null) {
                 UserDetails userDetails = org.springframework.security.core.userdetails.User
-                        .withUsername(user.getEmail())
-                        .password(user.getPassword())
-                        .authorities("ROLE_" + user.getRole().name())
+                        .withUsername(user.email())
+                        .password("")
+                        .authorities("ROLE_" + user.role().name())
                         .build();
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
@@ -1,9 +1,18 @@
 package com.example.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.security.Keys;
@@ -22,11 +31,42 @@ public class JwtUtil {
     @Value("${app.jwt.refresh}")
     private long refreshExpirationMs;
 
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
     private SecretKey key;
+    private JwtParser parser;
+    // SHA-256 of recently verified tokens -> their claims, each kept until the token expires
+    private Cache<String, Claims> verifiedTokens;
 
     @PostConstruct
     public void init() {
         key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parser().verifyWith(key).build();
+        if (verifiedCacheSize <= 0) {
+            return; // cache disabled
+        }
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        long millis = expiration != null ? expiration.getTime() - System.currentTimeMillis() : 0;
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateAccessToken(String email, String role) {
@@ -39,21 +79,51 @@ public class JwtUtil {
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verify a token once and return its claims, or null if it is invalid
+     * or expired. Tokens seen recently skip signature verification.
+     */
+    public Claims parseClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String digest = verifiedTokens != null ? digest(token) : null;
+        Claims claims = digest != null ? verifiedTokens.getIfPresent(digest) : null;
+        if (claims != null) {
+            return claims;
+        }
         try {
-            Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
-            return true;
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
+        if (digest != null) {
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
     }
 
     public String getEmailFromToken(String token) {
-        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().getSubject();
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     public String getRoleFromToken(String token) {
-        Object role = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().get("role");
+        Claims claims = parseClaims(token);
+        Object role = claims != null ? claims.get("role") : null;
         return role != null ? role.toString() : null;
     }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
\ No newline at end of file
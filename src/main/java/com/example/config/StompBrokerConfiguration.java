@@ -0,0 +1,31 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+
+/*
+ * Stands in for @EnableWebSocketMessageBroker so the broker's session
+ * handler can be replaced with one that exposes its per-session send
+ * buffers. Everything else still comes from the WebSocketMessageBrokerConfigurer
+ * beans, i.e. WebSocketConfig.
+ */
+@Configuration
+public class StompBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+    private StompSessionBuffers stompSessionBuffers;
+
+    @Autowired
+    public void setStompSessionBuffers(StompSessionBuffers stompSessionBuffers) {
+        this.stompSessionBuffers = stompSessionBuffers;
+    }
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                       AbstractSubscribableChannel clientOutboundChannel) {
+        return new BufferedSubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel, stompSessionBuffers);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Outbound buffering per STOMP session. The broker sends to every session
+ * through a bounded buffer (see BufferedSubProtocolWebSocketHandler); once a
+ * buffer holds more than the soft limit, seat deltas for that session are
+ * dropped (the client sees a sequence gap and resumes), and a session over
+ * the hard buffer or time limit is closed.
+ */
+@Component
+public class StompSessionBuffers implements ChannelInterceptor {
+    private final Map<String, ConcurrentWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private final int softLimitBytes;
+    private final int hardLimitBytes;
+    private final int sendTimeLimitMillis;
+    private final DistributionSummary bufferSummary;
+    private final Counter droppedSeatUpdates;
+
+    public StompSessionBuffers(MeterRegistry meterRegistry,
+                               @Value("${app.websocket.buffer.soft-limit-kb:64}") int softLimitKb,
+                               @Value("${app.websocket.buffer.hard-limit-kb:512}") int hardLimitKb,
+                               @Value("${app.websocket.send-time-limit-ms:10000}") int sendTimeLimitMillis) {
+        this.softLimitBytes = softLimitKb * 1024;
+        this.hardLimitBytes = hardLimitKb * 1024;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSummary = DistributionSummary.builder("smartbus.websocket.session.buffered")
+                .description("Bytes waiting to be written per STOMP session")
+                .baseUnit("bytes")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.droppedSeatUpdates = Counter.builder("smartbus.websocket.seat.dropped")
+                .description("Seat deltas skipped for sessions over the soft buffer limit")
+                .register(meterRegistry);
+        Gauge.builder("smartbus.websocket.sessions", sessions, Map::size)
+                .description("Open STOMP sessions on this node")
+                .register(meterRegistry);
+        Gauge.builder("smartbus.websocket.buffered", this, StompSessionBuffers::totalBuffered)
+                .description("Bytes waiting to be written to all STOMP sessions")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public int getHardLimitBytes() {
+        return hardLimitBytes;
+    }
+
+    public int getSendTimeLimitMillis() {
+        return sendTimeLimitMillis;
+    }
+
+    // Called by the broker's session handler with the decorator it sends through
+    void register(ConcurrentWebSocketSessionDecorator session) {
+        sessions.put(session.getId(), session);
+    }
+
+    void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    // Skip seat deltas for sessions that are already behind
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !isSeatTopic(SimpMessageHeaderAccessor.getDestination(headers))) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        ConcurrentWebSocketSessionDecorator session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session != null && session.getBufferSize() > softLimitBytes) {
+            droppedSeatUpdates.increment();
+            return null;
+        }
+        return message;
+    }
+
+    @Scheduled(fixedRate = 5000)
+    public void recordBufferSizes() {
+        for (ConcurrentWebSocketSessionDecorator session : sessions.values()) {
+            bufferSummary.record(session.getBufferSize());
+        }
+    }
+
+    private double totalBuffered() {
+        long total = 0;
+        for (ConcurrentWebSocketSessionDecorator session : sessions.values()) {
+            total += session.getBufferSize();
+        }
+        return total;
+    }
+
+    private static boolean isSeatTopic(String destination) {
+        return destination != null && destination.startsWith("/topic/trips/") && destination.endsWith("/seats");
+    }
+}
@@ -1,18 +1,52 @@
 package com.example.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+// Each node runs the simple broker; app.websocket.broker=redis fans messages out to all of them.
+// The broker itself is set up by StompBrokerConfiguration.
 @Configuration
-@EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final MeterRegistry meterRegistry;
+    private final StompSessionBuffers stompSessionBuffers;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
         config.setApplicationDestinationPrefixes("/app");
+        // Seat deltas must reach each client in sequence order
+        config.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        executor.setThreadNamePrefix("clientOutboundChannel-");
+        registration.taskExecutor(executor);
+        registration.interceptors(stompSessionBuffers);
+
+        Gauge.builder("smartbus.websocket.outbound.queue", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Messages waiting to be written to STOMP clients on this node")
+                .register(meterRegistry);
+        Gauge.builder("smartbus.websocket.outbound.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Threads writing to STOMP clients on this node")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(stompSessionBuffers.getHardLimitBytes());
+        registration.setSendTimeLimit(stompSessionBuffers.getSendTimeLimitMillis());
     }
 
     public void registerStompEndpoints(StompEndpointRegistry registry) {
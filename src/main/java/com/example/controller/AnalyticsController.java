@@ -1,17 +1,26 @@
 package com.example.controller;
 
 import com.example.dto.RouteAnalyticsDTO;
+import com.example.dto.responses.DistinctPassengersResponse;
+import com.example.dto.responses.OccupancyStatsResponse;
+import com.example.dto.responses.PeakHourDTO;
+import com.example.dto.responses.TopItemsResponse;
 import com.example.service.AnalyticsService;
+import com.example.service.AnalyticsSketchService;
+import com.example.service.OccupancyService;
+import com.example.service.PeakHourService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -20,6 +29,9 @@ import java.util.List;
 @Tag(name = "Analytics API", description = "API to fetch analytics data")
 public class AnalyticsController {
     private final AnalyticsService analyticsService;
+    private final PeakHourService peakHourService;
+    private final AnalyticsSketchService analyticsSketchService;
+    private final OccupancyService occupancyService;
 
     @GetMapping("/routes")
     @Operation(summary = "API to fetch routes analytics")
@@ -28,4 +40,92 @@ public class AnalyticsController {
     public ResponseEntity<List<RouteAnalyticsDTO>> getRouteAnalytics() {
         return ResponseEntity.ok(analyticsService.getRouteAnalytics());
     }
+
+    @GetMapping("/peak-hours")
+    @Operation(summary = "API to fetch bookings by departure hour",
+            description = "Bookings for departures in the date range, per hour of the day. " +
+                    "Counts reach the report within about a minute")
+    @SecurityRequirement(name = "bearer-jwt")
+    @PreAuthorize("hasAnyRole('ADMIN','SUPER_ADMIN')")
+    public ResponseEntity<List<PeakHourDTO>> getPeakHours(
+            @Parameter(description = "First departure date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last departure date, inclusive") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Only this route") @RequestParam(required = false) Long routeId,
+            @Parameter(description = "Only this departure park") @RequestParam(required = false) Long departureParkId) {
+        return ResponseEntity.ok(peakHourService.getPeakHours(from, to, routeId, departureParkId));
+    }
+
+    @PostMapping("/peak-hours/rebuild")
+    @Operation(summary = "API to recompute peak-hour buckets from bookings",
+            description = "Rebuilds the hourly buckets for a date range from the bookings table. Returns the buckets written")
+    @SecurityRequirement(name = "bearer-jwt")
+    @PreAuthorize("hasAnyRole('ADMIN','SUPER_ADMIN')")
+    public ResponseEntity<Integer> rebuildPeakHours(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(peakHourService.rebuild(from, to));
+    }
+
+    @GetMapping("/passengers")
+    @Operation(summary = "API to fetch estimated distinct passengers per route",
+            description = "Distinct users with a confirmed booking per route over the months, from a HyperLogLog " +
+                    "sketch. Estimates have a relative standard error of about 2.3%; the bounds cover two standard " +
+                    "errors. Covers the last 13 months; confirmations on other instances are included within 15 minutes")
+    @SecurityRequirement(name = "bearer-jwt")
+    @PreAuthorize("hasAnyRole('ADMIN','SUPER_ADMIN')")
+    public ResponseEntity<List<DistinctPassengersResponse>> getDistinctPassengers(
+            @Parameter(description = "First month, e.g. 2025-01") @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @Parameter(description = "Last month, inclusive") @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+            @Parameter(description = "Only this route") @RequestParam(required = false) Long routeId) {
+        return ResponseEntity.ok(analyticsSketchService.getDistinctPassengers(from, to, routeId));
+    }
+
+    @GetMapping("/top-routes")
+    @Operation(summary = "API to fetch the busiest routes",
+            description = "Routes with the most confirmed bookings in the date range, from a Space-Saving sketch. " +
+                    "Each count lies between guaranteedCount and count, and no unlisted route exceeds " +
+                    "maxUnlistedCount. Covers the last 62 days; confirmations on other instances are included within " +
+                    "15 minutes")
+    @SecurityRequirement(name = "bearer-jwt")
+    @PreAuthorize("hasAnyRole('ADMIN','SUPER_ADMIN')")
+    public ResponseEntity<TopItemsResponse> getTopRoutes(
+            @Parameter(description = "First confirmation date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last confirmation date, inclusive") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Routes to return, at most 50") @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(analyticsSketchService.getTopRoutes(from, to, limit));
+    }
+
+    @GetMapping("/top-parks")
+    @Operation(summary = "API to fetch the busiest departure parks",
+            description = "Departure parks with the most confirmed bookings in the date range, with the same " +
+                    "bounds as the busiest routes. Covers the last 62 days")
+    @SecurityRequirement(name = "bearer-jwt")
+    @PreAuthorize("hasAnyRole('ADMIN','SUPER_ADMIN')")
+    public ResponseEntity<TopItemsResponse> getTopParks(
+            @Parameter(description = "First confirmation date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last confirmation date, inclusive") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Parks to return, at most 50") @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(analyticsSketchService.getTopDepartureParks(from, to, limit));
+    }
+
+    @GetMapping("/occupancy")
+    @Operation(summary = "API to fetch load factor percentiles",
+            description = "p50/p90/p99 and mean load factor (booked seats / total seats) per route and bus type at " +
+                    "7 days, 1 day and 1 hour before departure and at departure, for recently departed trips. " +
+                    "Recomputed nightly")
+    @SecurityRequirement(name = "bearer-jwt")
+    @PreAuthorize("hasAnyRole('ADMIN','SUPER_ADMIN')")
+    public ResponseEntity<List<OccupancyStatsResponse>> getOccupancyReport(
+            @Parameter(description = "Only this route") @RequestParam(required = false) Long routeId) {
+        return ResponseEntity.ok(occupancyService.getOccupancyReport(routeId));
+    }
+
+    @PostMapping("/occupancy/aggregate")
+    @Operation(summary = "API to recompute load factor percentiles now",
+            description = "Runs the nightly occupancy aggregation. Returns the rows written")
+    @SecurityRequirement(name = "bearer-jwt")
+    @PreAuthorize("hasAnyRole('ADMIN','SUPER_ADMIN')")
+    public ResponseEntity<Integer> aggregateOccupancy() {
+        return ResponseEntity.ok(occupancyService.aggregate());
+    }
 }
@@ -3,7 +3,10 @@ package com.example.controller;
 import com.example.dto.SeatAvailabilityDTO;
 import com.example.dto.requests.BookingRequest;
 import com.example.dto.responses.BookingResponse;
+import com.example.dto.responses.SeatResumeResponse;
 import com.example.service.BookingService;
+import com.example.service.CurrentUserService;
+import com.example.service.WaitingRoomService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,16 +25,35 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookingController {
     private final BookingService bookingService;
+    private final WaitingRoomService waitingRoomService;
+    private final CurrentUserService currentUserService;
 
     @GetMapping("/seats/{tripId}")
     @Operation(summary = "Get seat availability for a trip")
-    public ResponseEntity<SeatAvailabilityDTO> getSeatAvailability(@PathVariable Long tripId) {
+    public ResponseEntity<SeatAvailabilityDTO> getSeatAvailability(
+            @PathVariable Long tripId,
+            @RequestHeader(value = "X-Waiting-Room-Ticket", required = false) String ticket) {
+        waitingRoomService.checkAdmission(tripId, ticket, currentUserService.getCurrentUser().getId());
         return ResponseEntity.ok(bookingService.getSeatAvailability(tripId));
     }
 
+    @GetMapping("/seats/{tripId}/resume")
+    @Operation(summary = "Catch up on seat updates after a reconnect",
+            description = "Returns the updates after the given sequence, or a snapshot if they are no longer kept")
+    public ResponseEntity<SeatResumeResponse> resumeSeatUpdates(
+            @PathVariable Long tripId,
+            @RequestParam long since,
+            @RequestHeader(value = "X-Waiting-Room-Ticket", required = false) String ticket) {
+        waitingRoomService.checkAdmission(tripId, ticket, currentUserService.getCurrentUser().getId());
+        return ResponseEntity.ok(bookingService.resumeSeatUpdates(tripId, since));
+    }
+
     @PostMapping
     @Operation(summary = "Create a new booking")
-    public ResponseEntity<BookingResponse> createBooking(@Valid @RequestBody BookingRequest request) {
+    public ResponseEntity<BookingResponse> createBooking(
+            @Valid @RequestBody BookingRequest request,
+            @RequestHeader(value = "X-Waiting-Room-Ticket", required = false) String ticket) {
+        waitingRoomService.checkAdmission(request.getTripId(), ticket, currentUserService.getCurrentUser().getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(bookingService.createBooking(request));
     }
 
@@ -0,0 +1,48 @@
+package com.example.controller;
+
+import com.example.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/exports")
+@RequiredArgsConstructor
+@Tag(name = "Export API", description = "APIs to export bookings, payments and trips")
+public class ExportController {
+    private final ExportService exportService;
+
+    @GetMapping("/{dataset}")
+    @Operation(summary = "API to export bookings, payments or trips",
+            description = "Streams every row dated in the range as CSV or NDJSON. Bookings are dated by booking " +
+                    "time, payments by payment time and trips by departure time")
+    @SecurityRequirement(name = "bearer-jwt")
+    @PreAuthorize("hasAnyRole('ADMIN','SUPER_ADMIN')")
+    public void export(
+            @Parameter(description = "bookings, payments or trips") @PathVariable String dataset,
+            @Parameter(description = "First date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last date, inclusive") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "csv or ndjson") @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        ExportService.Dataset exportDataset = ExportService.Dataset.of(dataset);
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        exportService.validateRange(from, to); // before anything is written, so errors are still JSON
+
+        String fileName = exportDataset.name().toLowerCase() + "-" + from + "-" + to + "." + exportFormat.extension();
+        response.setContentType(exportFormat.contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        long rows = exportService.export(exportDataset, exportFormat, from, to, response.getOutputStream());
+        System.out.println("Exported " + rows + " rows to " + fileName);
+    }
+}
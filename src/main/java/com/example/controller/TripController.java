@@ -1,7 +1,16 @@
 package com.example.controller;
 
+import com.example.dto.requests.RecurringTripRequest;
+import com.example.dto.requests.ScheduleValidationRequest;
 import com.example.dto.requests.TripRequest;
+import com.example.dto.responses.ItineraryResponse;
+import com.example.dto.responses.RecurringTripResponse;
+import com.example.dto.responses.ScheduleValidationResponse;
+import com.example.dto.responses.TimetableEntryResponse;
 import com.example.dto.responses.TripResponse;
+import com.example.dto.responses.TripSearchPage;
+import com.example.service.ConnectionSearchService;
+import com.example.service.RecurringTripService;
 import com.example.service.TripService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -18,6 +27,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @RestController
@@ -26,10 +36,15 @@ import java.util.List;
 @SecurityRequirement(name = "bearer-jwt")
 public class TripController {
     private final TripService tripService;
+    private final ConnectionSearchService connectionSearchService;
+    private final RecurringTripService recurringTripService;
 
     @Autowired
-    public TripController(TripService tripService) {
+    public TripController(TripService tripService, ConnectionSearchService connectionSearchService,
+                          RecurringTripService recurringTripService) {
         this.tripService = tripService;
+        this.connectionSearchService = connectionSearchService;
+        this.recurringTripService = recurringTripService;
     }
 
     @Operation(summary = "Create a new trip schedule",
@@ -47,18 +62,103 @@ public class TripController {
         return ResponseEntity.status(HttpStatus.CREATED).body(trip);
     }
 
+    @Operation(summary = "Create trips from a recurring schedule",
+            description = "Expand a schedule such as daily 06:00 for 90 days into trips for one bus and route. " +
+                    "Occurrences in the past or overlapping the bus's other trips are skipped and listed in failures")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Schedule expanded"),
+            @ApiResponse(responseCode = "400", description = "Invalid input"),
+            @ApiResponse(responseCode = "403", description = "Unauthorized to schedule this bus")
+    })
+    @PostMapping("/recurring")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN', 'OPERATOR')")
+    public ResponseEntity<RecurringTripResponse> createRecurringTrips(@Valid @RequestBody RecurringTripRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(recurringTripService.createRecurringTrips(request));
+    }
+
     @Operation(summary = "Search for trips",
-            description = "Search for trips by origin, destination and date")
+            description = "Search for trips by origin, destination and date, ordered by departure. " +
+                    "When more trips match, the X-Next-Cursor header holds the cursor for the next page")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Search completed successfully")
     })
     @GetMapping("/search")
     public ResponseEntity<List<TripResponse>> searchTrips(
+            @Parameter(description = "Origin location") @RequestParam String origin,
+            @Parameter(description = "Destination location") @RequestParam String destination,
+            @Parameter(description = "Travel date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Minimum price") @RequestParam(required = false) Double minPrice,
+            @Parameter(description = "Maximum price") @RequestParam(required = false) Double maxPrice,
+            @Parameter(description = "Bus type, e.g. LUXURY") @RequestParam(required = false) String busType,
+            @Parameter(description = "Minimum available seats") @RequestParam(required = false) Integer minSeats,
+            @Parameter(description = "Cursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, at most 100") @RequestParam(defaultValue = "50") int limit) {
+        TripSearchPage page = tripService.searchTrips(origin, destination, date,
+                minPrice, maxPrice, busType, minSeats, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getTrips());
+    }
+
+    @Operation(summary = "Get the timetable for a day",
+            description = "Bookable trips between two cities on a date, ordered by departure, " +
+                    "served from the in-memory timetable")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Timetable retrieved")
+    })
+    @GetMapping("/timetable")
+    public ResponseEntity<List<TimetableEntryResponse>> getTimetable(
             @Parameter(description = "Origin location") @RequestParam String origin,
             @Parameter(description = "Destination location") @RequestParam String destination,
             @Parameter(description = "Travel date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        List<TripResponse> trips = tripService.searchTrips(origin, destination, date);
-        return ResponseEntity.ok(trips);
+        return ResponseEntity.ok(tripService.getTimetable(origin, destination, date));
+    }
+
+    @Operation(summary = "Find a connection",
+            description = "Best itinerary between two cities on a date, changing buses at shared bus parks. " +
+                    "optimize is EARLIEST_ARRIVAL or CHEAPEST")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Itinerary found"),
+            @ApiResponse(responseCode = "404", description = "No connection on that date")
+    })
+    @GetMapping("/connections")
+    public ResponseEntity<ItineraryResponse> findConnection(
+            @Parameter(description = "Origin location") @RequestParam String origin,
+            @Parameter(description = "Destination location") @RequestParam String destination,
+            @Parameter(description = "Travel date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Earliest departure time, e.g. 08:00") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime departAfter,
+            @Parameter(description = "Seats needed on every leg") @RequestParam(defaultValue = "1") int passengers,
+            @Parameter(description = "What to optimize for") @RequestParam(defaultValue = "EARLIEST_ARRIVAL") ConnectionSearchService.Optimize optimize) {
+        return ResponseEntity.ok(connectionSearchService.findConnection(origin, destination, date,
+                departAfter, passengers, optimize));
+    }
+
+    @Operation(summary = "Rebuild the timetable",
+            description = "Reload the in-memory timetable from the database. Returns the number of trips indexed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Timetable rebuilt")
+    })
+    @PostMapping("/timetable/rebuild")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<Integer> rebuildTimetable() {
+        return ResponseEntity.ok(tripService.rebuildTimetable());
+    }
+
+    @Operation(summary = "Validate a schedule",
+            description = "Check a batch of bus time slots, e.g. a week of trips, against existing trips " +
+                    "and each other. Returns every conflict found; nothing is saved")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Validation completed"),
+            @ApiResponse(responseCode = "400", description = "Invalid input"),
+            @ApiResponse(responseCode = "403", description = "Unauthorized for one of the buses")
+    })
+    @PostMapping("/schedule/validate")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN', 'OPERATOR')")
+    public ResponseEntity<ScheduleValidationResponse> validateSchedule(
+            @Valid @RequestBody ScheduleValidationRequest request) {
+        return ResponseEntity.ok(tripService.validateSchedule(request.getSlots()));
     }
 
     @Operation(summary = "Get trip details",
@@ -0,0 +1,55 @@
+package com.example.controller;
+
+import com.example.dto.responses.WaitingRoomStatus;
+import com.example.service.CurrentUserService;
+import com.example.service.WaitingRoomService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/waiting-room")
+@Tag(name = "Waiting Room", description = "Admission queue for high-demand trips")
+@SecurityRequirement(name = "bearer-jwt")
+@RequiredArgsConstructor
+public class WaitingRoomController {
+    private final WaitingRoomService waitingRoomService;
+    private final CurrentUserService currentUserService;
+
+    @PostMapping("/{tripId}/join")
+    @Operation(summary = "Join the waiting room of a trip",
+            description = "Returns a ticket; pass it as X-Waiting-Room-Ticket once admitted. " +
+                    "Admission is pushed to /topic/waiting-room/{tripId}/{ticket}")
+    public ResponseEntity<WaitingRoomStatus> join(@PathVariable Long tripId) {
+        return ResponseEntity.ok(waitingRoomService.join(tripId, currentUserService.getCurrentUser().getId()));
+    }
+
+    @GetMapping("/{tripId}/status")
+    @Operation(summary = "Get queue position for a waiting room ticket")
+    public ResponseEntity<WaitingRoomStatus> getStatus(@PathVariable Long tripId, @RequestParam String ticket) {
+        return ResponseEntity.ok(waitingRoomService.getStatus(tripId, ticket, currentUserService.getCurrentUser().getId()));
+    }
+
+    @PostMapping("/{tripId}/open")
+    @Operation(summary = "Open a waiting room for a trip")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<Void> open(
+            @PathVariable Long tripId,
+            @Parameter(description = "Buyers admitted per second") @RequestParam(required = false) Integer admitPerSecond) {
+        waitingRoomService.open(tripId, admitPerSecond);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{tripId}")
+    @Operation(summary = "Close the waiting room of a trip")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<Void> close(@PathVariable Long tripId) {
+        waitingRoomService.close(tripId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -13,5 +13,6 @@ public class SeatAvailabilityDTO {
     private int totalSeats;
     private int availableSeats;
     private Map<Integer, Boolean> seatStatus; // seatNumber -> isAvailable
+    private long sequence; // last seat update already reflected here
 }
 
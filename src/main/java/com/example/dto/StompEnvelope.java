@@ -0,0 +1,19 @@
+package com.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A STOMP message on its way to the other nodes through Redis pub/sub
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StompEnvelope {
+    private String destination;
+    private long sentAt; // epoch millis, for fan-out latency
+    private Long sequence; // seat deltas only, assigned by the shared counter
+    private JsonNode payload;
+}
@@ -0,0 +1,41 @@
+package com.example.dto.requests;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+@Data
+public class RecurringTripRequest {
+    @NotNull(message = "Bus ID is required")
+    private Long busId;
+
+    @NotNull(message = "Route ID is required")
+    private Long routeId;
+
+    @NotNull(message = "Departure park ID is required")
+    private Long departureParkId;
+
+    @NotNull(message = "Arrival park ID is required")
+    private Long arrivalParkId;
+
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+
+    @NotNull(message = "End date is required")
+    private LocalDate endDate; // inclusive
+
+    @NotEmpty(message = "At least one departure time is required")
+    private List<LocalTime> departureTimes;
+
+    private Set<DayOfWeek> daysOfWeek; // every day when empty
+
+    @Min(value = 1, message = "Duration must be at least one minute")
+    private Integer durationMinutes; // defaults to the route's estimated duration
+}
@@ -0,0 +1,20 @@
+package com.example.dto.requests;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ScheduleSlotRequest {
+    private Long tripId; // set when moving an existing trip
+
+    @NotNull(message = "Bus ID is required")
+    private Long busId;
+
+    @NotNull(message = "Departure time is required")
+    private LocalDateTime departureTime;
+
+    @NotNull(message = "Arrival time is required")
+    private LocalDateTime arrivalTime;
+}
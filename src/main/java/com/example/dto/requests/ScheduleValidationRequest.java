@@ -0,0 +1,16 @@
+package com.example.dto.requests;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ScheduleValidationRequest {
+    @NotEmpty(message = "At least one slot is required")
+    @Size(max = 5000, message = "At most 5000 slots per request")
+    @Valid
+    private List<ScheduleSlotRequest> slots;
+}
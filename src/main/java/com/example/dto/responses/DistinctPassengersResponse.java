@@ -0,0 +1,15 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DistinctPassengersResponse {
+    private Long routeId;
+    private String routeName;
+    private long estimate;
+    private double relativeStandardError; // e.g. 0.023 for +/-2.3%
+    private long lowerBound; // about 95% of estimates fall within the bounds
+    private long upperBound;
+}
@@ -0,0 +1,19 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class ItineraryLegResponse {
+    private Long tripId;
+    private String origin;
+    private String destination;
+    private Long departureParkId;
+    private Long arrivalParkId;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private double amount;
+}
@@ -0,0 +1,17 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ItineraryResponse {
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private double totalAmount;
+    private int transfers;
+    private List<ItineraryLegResponse> legs; // in travel order; consecutive legs share a bus park
+}
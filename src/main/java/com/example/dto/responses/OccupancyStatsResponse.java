@@ -0,0 +1,25 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class OccupancyStatsResponse {
+    private Long routeId;
+    private String routeName;
+    private String busType;
+    private String offset; // T-7d, T-1d, T-1h or T-0 (departure)
+    private long trips;
+    // Booked seats / total seats, 0.0 - 1.0
+    private double meanLoad;
+    private double p50Load;
+    private double p90Load;
+    private double p99Load;
+    private LocalDate windowStart;
+    private LocalDate windowEnd;
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,15 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class OccurrenceFailure {
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private String reason; // IN_PAST, OVERLAPS_TRIP or OVERLAPS_SCHEDULE
+    private Long conflictingTripId; // for OVERLAPS_TRIP
+}
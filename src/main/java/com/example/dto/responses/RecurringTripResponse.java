@@ -0,0 +1,15 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class RecurringTripResponse {
+    private int requested;
+    private int created;
+    private List<Long> tripIds;
+    private List<OccurrenceFailure> failures; // occurrences that were skipped and why
+}
@@ -0,0 +1,18 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class ScheduleConflictResponse {
+    private int index; // position of the slot in the request
+    private Long busId;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private String reason; // INVALID_TIMES, OVERLAPS_TRIP or OVERLAPS_REQUEST
+    private Long conflictingTripId; // existing trip, for OVERLAPS_TRIP
+    private Integer conflictingIndex; // other slot in the request, for OVERLAPS_REQUEST
+}
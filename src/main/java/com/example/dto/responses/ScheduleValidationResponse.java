@@ -0,0 +1,14 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ScheduleValidationResponse {
+    private boolean valid;
+    private int checked;
+    private List<ScheduleConflictResponse> conflicts;
+}
@@ -0,0 +1,16 @@
+package com.example.dto.responses;
+
+import com.example.dto.SeatAvailabilityDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SeatResumeResponse {
+    private Long tripId;
+    private long sequence; // latest sequence covered by this response
+    private List<SeatUpdateMessage> deltas; // missed updates, oldest first; empty when a snapshot is sent
+    private SeatAvailabilityDTO snapshot; // only when the missed updates are no longer kept
+}
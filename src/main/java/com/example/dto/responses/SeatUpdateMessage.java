@@ -2,12 +2,15 @@ package com.example.dto.responses;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.Map;
 
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class SeatUpdateMessage {
     private Long tripId;
+    private long sequence; // +1 per message for a trip, a gap means updates were missed
     private Map<Integer, Boolean> seatUpdates; // seatNumber -> isAvailable
 }
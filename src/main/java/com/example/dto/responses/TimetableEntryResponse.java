@@ -0,0 +1,16 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class TimetableEntryResponse {
+    private Long tripId;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private double amount;
+    private int availableSeats;
+}
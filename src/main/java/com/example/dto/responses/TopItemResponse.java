@@ -0,0 +1,13 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TopItemResponse {
+    private Long id;
+    private String name;
+    private long count; // never below the true count
+    private long guaranteedCount; // never above the true count
+}
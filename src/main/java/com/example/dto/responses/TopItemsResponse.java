@@ -0,0 +1,17 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TopItemsResponse {
+    private LocalDate from;
+    private LocalDate to;
+    private long totalConfirmations;
+    private long maxUnlistedCount; // no item missing from the list can have more
+    private List<TopItemResponse> items;
+}
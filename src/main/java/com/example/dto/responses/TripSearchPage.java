@@ -0,0 +1,13 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TripSearchPage {
+    private List<TripResponse> trips;
+    private String nextCursor; // null on the last page
+}
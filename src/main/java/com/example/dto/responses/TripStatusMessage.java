@@ -0,0 +1,17 @@
+package com.example.dto.responses;
+
+import com.example.model.TripStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripStatusMessage {
+    private Long tripId;
+    private TripStatus status;
+    private LocalDateTime changedAt;
+}
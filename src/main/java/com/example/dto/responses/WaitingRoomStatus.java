@@ -0,0 +1,16 @@
+package com.example.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class WaitingRoomStatus {
+    private Long tripId;
+    private String ticket;
+    private long position; // 0 once admitted
+    private boolean admitted;
+    private LocalDateTime admissionExpiresAt;
+}
@@ -127,4 +127,16 @@ public class GlobalExceptionHandler {
         ErrorResponse err = new ErrorResponse("QRCODE_ERROR", ex.getMessage());
         return new ResponseEntity<>(err, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponse> handleServiceBusyException(ServiceBusyException ex) {
+        ErrorResponse err = new ErrorResponse("SERVICE_BUSY", ex.getMessage());
+        return new ResponseEntity<>(err, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(AdmissionRequiredException.class)
+    public ResponseEntity<ErrorResponse> handleAdmissionRequiredException(AdmissionRequiredException ex) {
+        ErrorResponse err = new ErrorResponse("WAITING_ROOM", ex.getMessage());
+        return new ResponseEntity<>(err, HttpStatus.TOO_MANY_REQUESTS);
+    }
 }
@@ -2,6 +2,7 @@ package com.example.mappers;
 
 import com.example.dto.responses.TripResponse;
 import com.example.model.Trip;
+import com.example.repository.TripSearchRow;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -45,4 +46,17 @@ public interface TripMapper {
     TripResponse toTripResponse(Trip trip);
 
     List<TripResponse> toTripResponseList(List<Trip> trips);
+
+    // Search rows are already flat, only the derived fields need work
+    @Mapping(target = "formattedDepartureTime", source = "departureTime", qualifiedByName = "formatDate")
+    @Mapping(target = "formattedArrivalTime", source = "arrivalTime", qualifiedByName = "formatDate")
+    @Mapping(
+            target = "durationMinutes",
+            expression = "java(dateMapper.calculateDurationMinutes(row.departureTime(), row.arrivalTime()))"
+    )
+    @Mapping(
+            target = "formattedDuration",
+            expression = "java(dateMapper.formatDuration(row.departureTime(), row.arrivalTime()))"
+    )
+    TripResponse toTripResponse(TripSearchRow row);
 }
\ No newline at end of file
@@ -11,6 +11,10 @@ import lombok.Data;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_booking_time", columnList = "booking_time, id"),
+        @Index(name = "idx_booking_trip_status", columnList = "trip_id, status")
+})
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,7 +31,8 @@ public class Booking {
     @ElementCollection
     @CollectionTable(
             name = "booking_seats",
-            joinColumns = @JoinColumn(name = "booking_id")
+            joinColumns = @JoinColumn(name = "booking_id"),
+            indexes = @Index(name = "idx_booking_seats_booking", columnList = "booking_id")
     )
     @Column(name = "seat_number")
     private List<Integer> seatNumbers = new ArrayList<>();
@@ -35,6 +40,7 @@ public class Booking {
     private BookingStatus status; // PENDING, CONFIRMED, CANCELLED
     private LocalDateTime bookingTime;
     private LocalDateTime expiryTime; //For pending bookings
+    private String holdToken; // Owner of the seat hold in the seat hold store
 
     @Column(name = "price")
     private double totalAmount;
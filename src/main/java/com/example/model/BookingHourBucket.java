@@ -0,0 +1,38 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Bookings made for departures in one hour of one day, per route and
+ * departure park. Written by the peak-hour rollup, never by request code.
+ */
+@Entity
+@Data
+@Table(
+        name = "booking_hour_bucket",
+        uniqueConstraints = @UniqueConstraint(name = "uk_booking_hour_bucket",
+                columnNames = {"bucket_date", "bucket_hour", "route_id", "departure_park_id"})
+)
+public class BookingHourBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "bucket_hour", nullable = false)
+    private int bucketHour; // 0-23, departure hour
+
+    @Column(name = "route_id", nullable = false)
+    private Long routeId;
+
+    @Column(name = "departure_park_id", nullable = false)
+    private Long departureParkId; // 0 when the trip had none
+
+    private long bookings;
+    private long seats;
+}
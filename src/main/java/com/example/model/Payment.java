@@ -10,6 +10,7 @@ import lombok.Data;
 
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_payment_time", columnList = "payment_time, id"))
 public class Payment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
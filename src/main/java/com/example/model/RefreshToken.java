@@ -7,6 +7,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "uk_refresh_token_token", columnList = "token", unique = true),
+        @Index(name = "idx_refresh_token_expiry_date", columnList = "expiry_date")
+})
 public class RefreshToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
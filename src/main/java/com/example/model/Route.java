@@ -9,6 +9,7 @@ import java.util.List;
 
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_route_origin_destination", columnList = "origin, destination"))
 public class Route {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,54 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Load factor distribution for departed trips of one route and bus type at
+ * one snapshot offset. Recomputed by the occupancy aggregation job, never
+ * by request code.
+ */
+@Entity
+@Data
+@Table(
+        name = "route_occupancy_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_route_occupancy_stats",
+                columnNames = {"route_id", "bus_type", "offset_minutes"}),
+        indexes = @Index(name = "idx_route_occupancy_stats_route", columnList = "route_id")
+)
+public class RouteOccupancyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "route_id", nullable = false)
+    private Long routeId;
+
+    @Column(name = "bus_type", nullable = false)
+    private String busType;
+
+    @Column(name = "offset_minutes", nullable = false)
+    private short offsetMinutes;
+
+    private long trips;
+
+    // Booked seats / total seats, 0.0 - 1.0
+    @Column(name = "mean_load")
+    private double meanLoad;
+    @Column(name = "p50_load")
+    private double p50Load;
+    @Column(name = "p90_load")
+    private double p90Load;
+    @Column(name = "p99_load")
+    private double p99Load;
+
+    @Column(name = "window_start", nullable = false)
+    private LocalDate windowStart; // departures from this date
+    @Column(name = "window_end", nullable = false)
+    private LocalDate windowEnd; // up to, not including, this date
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,30 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * One row per seat held on a trip. The unique key on (trip_id, seat_number)
+ * is what keeps two bookings from holding the same seat.
+ */
+@Entity
+@Data
+@Table(
+        name = "trip_seat_claims",
+        uniqueConstraints = @UniqueConstraint(name = "uk_trip_seat_claims_trip_seat", columnNames = {"trip_id", "seat_number"}),
+        indexes = @Index(name = "idx_trip_seat_claims_booking", columnList = "booking_id")
+)
+public class SeatClaim {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trip_id", nullable = false)
+    private Long tripId;
+
+    @Column(name = "seat_number", nullable = false)
+    private Integer seatNumber;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+}
@@ -9,6 +9,13 @@ import lombok.Data;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_trip_route_departure", columnList = "route_id, departure_time, id"),
+        @Index(name = "idx_trip_departure", columnList = "departure_time, id"),
+        @Index(name = "idx_trip_bus_departure", columnList = "bus_id, departure_time"),
+        @Index(name = "idx_trip_status_departure", columnList = "status, departure_time"),
+        @Index(name = "idx_trip_status_arrival", columnList = "status, arrival_time")
+})
 public class Trip {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
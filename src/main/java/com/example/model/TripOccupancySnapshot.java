@@ -0,0 +1,39 @@
+package com.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Confirmed seats on a trip at a fixed offset before departure (7 days,
+ * 1 day, 1 hour, departure). Written by the occupancy recorder, one row
+ * per trip and offset.
+ */
+@Entity
+@Data
+@Table(
+        name = "trip_occupancy_snapshot",
+        uniqueConstraints = @UniqueConstraint(name = "uk_trip_occupancy_snapshot",
+                columnNames = {"trip_id", "offset_minutes"})
+)
+public class TripOccupancySnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trip_id", nullable = false)
+    private Long tripId;
+
+    @Column(name = "offset_minutes", nullable = false)
+    private short offsetMinutes; // minutes before departure
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    @Column(name = "booked_seats", nullable = false)
+    private short bookedSeats;
+
+    @Column(name = "total_seats", nullable = false)
+    private short totalSeats;
+}
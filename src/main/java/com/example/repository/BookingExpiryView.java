@@ -0,0 +1,9 @@
+package com.example.repository;
+
+import java.time.LocalDateTime;
+
+// Projection used to rebuild the expiry wheel without loading bookings
+public interface BookingExpiryView {
+    Long getId();
+    LocalDateTime getExpiryTime();
+}
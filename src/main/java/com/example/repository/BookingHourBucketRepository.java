@@ -0,0 +1,46 @@
+package com.example.repository;
+
+import com.example.model.BookingHourBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BookingHourBucketRepository extends JpaRepository<BookingHourBucket, Long> {
+
+    @Query("SELECT new com.example.repository.HourTotal(b.bucketHour, SUM(b.bookings)) FROM BookingHourBucket b " +
+            "WHERE b.bucketDate BETWEEN :fromDate AND :toDate " +
+            "AND (:routeId IS NULL OR b.routeId = :routeId) " +
+            "AND (:departureParkId IS NULL OR b.departureParkId = :departureParkId) " +
+            "GROUP BY b.bucketHour")
+    List<HourTotal> sumByHour(LocalDate fromDate, LocalDate toDate, Long routeId, Long departureParkId);
+
+    // Adds to a bucket, creating it on first use
+    @Modifying
+    @Query(value = "INSERT INTO booking_hour_bucket (bucket_date, bucket_hour, route_id, departure_park_id, bookings, seats) " +
+            "VALUES (:bucketDate, :bucketHour, :routeId, :departureParkId, :bookings, :seats) " +
+            "ON CONFLICT (bucket_date, bucket_hour, route_id, departure_park_id) DO UPDATE " +
+            "SET bookings = booking_hour_bucket.bookings + EXCLUDED.bookings, seats = booking_hour_bucket.seats + EXCLUDED.seats",
+            nativeQuery = true)
+    int addToBucket(LocalDate bucketDate, int bucketHour, Long routeId, Long departureParkId, long bookings, long seats);
+
+    @Modifying
+    @Query("DELETE FROM BookingHourBucket b WHERE b.bucketDate BETWEEN :fromDate AND :toDate")
+    int deleteByDateRange(LocalDate fromDate, LocalDate toDate);
+
+    // Recomputes buckets for a date range from the bookings made before the cutoff, e.g. for history from before the rollup
+    @Modifying
+    @Query(value = "INSERT INTO booking_hour_bucket (bucket_date, bucket_hour, route_id, departure_park_id, bookings, seats) " +
+            "SELECT CAST(t.departure_time AS date), EXTRACT(HOUR FROM t.departure_time), t.route_id, " +
+            "COALESCE(t.departure_park_id, 0), COUNT(DISTINCT b.id), COUNT(s.seat_number) " +
+            "FROM booking b JOIN trip t ON t.id = b.trip_id LEFT JOIN booking_seats s ON s.booking_id = b.id " +
+            "WHERE t.departure_time >= :fromTime AND t.departure_time < :toTime " +
+            "AND (b.booking_time IS NULL OR b.booking_time < :cutoff) " +
+            "GROUP BY 1, 2, 3, 4", nativeQuery = true)
+    int insertFromBookings(LocalDateTime fromTime, LocalDateTime toTime, LocalDateTime cutoff);
+}
@@ -6,10 +6,12 @@ import com.example.model.Trip;
 import com.example.model.User;
 import io.lettuce.core.dynamic.annotation.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,4 +23,34 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findBySeatNumber(@Param("trip") Trip trip, @Param("seatNumber") Integer seatNumber);
 
     List<Booking> findByStatusAndExpiryTimeBefore(BookingStatus status, LocalDateTime expiryTimeBefore);
-}
\ No newline at end of file
+
+    @Query("SELECT s FROM Booking b JOIN b.seatNumbers s WHERE b.trip.id = :tripId AND b.status IN :statuses")
+    List<Integer> findSeatNumbersByTripIdAndStatusIn(@Param("tripId") Long tripId, @Param("statuses") Collection<BookingStatus> statuses);
+
+    List<BookingExpiryView> findByStatus(BookingStatus status);
+
+    List<BookingStatusView> findStatusByIdIn(Collection<Long> ids);
+
+    @Query("SELECT DISTINCT b FROM Booking b JOIN FETCH b.trip LEFT JOIN FETCH b.seatNumbers WHERE b.id IN :ids")
+    List<Booking> findWithSeatsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Totals for reconciling the route statistics read model
+    @Query("SELECT new com.example.repository.RouteBookingTotals(b.trip.route.id, b.status, COUNT(b), SUM(b.totalAmount)) " +
+            "FROM Booking b GROUP BY b.trip.route.id, b.status")
+    List<RouteBookingTotals> sumByRouteAndStatus();
+
+    @Query("SELECT new com.example.repository.RouteTripTotals(b.trip.route.id, COUNT(DISTINCT b.trip.id), COUNT(s)) " +
+            "FROM Booking b JOIN b.seatNumbers s WHERE b.status = :status GROUP BY b.trip.route.id")
+    List<RouteTripTotals> sumSeatsByRoute(@Param("status") BookingStatus status);
+
+    // Flips still-pending bookings to EXPIRED in one statement and returns the ones that changed
+    @Query(value = "UPDATE booking SET status = 'EXPIRED' WHERE id IN (:ids) AND status = 'PENDING' AND expiry_time <= :now RETURNING id",
+            nativeQuery = true)
+    List<Long> expirePending(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Confirms a booking only while it is still pending and unexpired; 0 when cancel or expiry got there first
+    @Modifying
+    @Query(value = "UPDATE booking SET status = 'CONFIRMED' WHERE id = :id AND status = 'PENDING' AND expiry_time > :now",
+            nativeQuery = true)
+    int confirmPending(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,9 @@
+package com.example.repository;
+
+import com.example.model.BookingStatus;
+
+// Projection used to check which booking changes a route statistics reconcile already read
+public interface BookingStatusView {
+    Long getId();
+    BookingStatus getStatus();
+}
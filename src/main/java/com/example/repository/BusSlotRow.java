@@ -0,0 +1,12 @@
+package com.example.repository;
+
+import java.time.LocalDateTime;
+
+// The time a trip occupies its bus
+public record BusSlotRow(
+        Long tripId,
+        Long busId,
+        LocalDateTime departureTime,
+        LocalDateTime arrivalTime
+) {
+}
@@ -0,0 +1,8 @@
+package com.example.repository;
+
+// Bookings in one hour of the day over a date range
+public record HourTotal(
+        Integer hour,
+        Long bookings
+) {
+}
@@ -2,9 +2,22 @@ package com.example.repository;
 
 import com.example.model.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     RefreshToken findByToken(String token);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.token = :token")
+    int deleteByTokenValue(@Param("token") String token);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiryDate < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
 }
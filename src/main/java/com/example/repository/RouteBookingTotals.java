@@ -0,0 +1,12 @@
+package com.example.repository;
+
+import com.example.model.BookingStatus;
+
+// Bookings on a route in one status
+public record RouteBookingTotals(
+        Long routeId,
+        BookingStatus status,
+        Long bookings,
+        Double amount
+) {
+}
@@ -0,0 +1,44 @@
+package com.example.repository;
+
+import com.example.model.RouteOccupancyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RouteOccupancyStatsRepository extends JpaRepository<RouteOccupancyStats, Long> {
+
+    List<RouteOccupancyStats> findByRouteIdOrderByBusTypeAscOffsetMinutesDesc(Long routeId);
+
+    List<RouteOccupancyStats> findAllByOrderByRouteIdAscBusTypeAscOffsetMinutesDesc();
+
+    // Held until the transaction ends, so instances aggregate one after another
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtext('route_occupancy_stats'))) l", nativeQuery = true)
+    int lockForAggregation();
+
+    @Modifying
+    @Query("DELETE FROM RouteOccupancyStats")
+    int deleteAllStats();
+
+    // Load factor percentiles per route, bus type and offset for trips that departed in the window
+    @Modifying
+    @Query(value = "INSERT INTO route_occupancy_stats (route_id, bus_type, offset_minutes, trips, mean_load, " +
+            "p50_load, p90_load, p99_load, window_start, window_end, computed_at) " +
+            "SELECT l.route_id, l.bus_type, l.offset_minutes, COUNT(*), AVG(l.load_factor), " +
+            "percentile_cont(0.5) WITHIN GROUP (ORDER BY l.load_factor), " +
+            "percentile_cont(0.9) WITHIN GROUP (ORDER BY l.load_factor), " +
+            "percentile_cont(0.99) WITHIN GROUP (ORDER BY l.load_factor), " +
+            ":windowStart, :windowEnd, :computedAt " +
+            "FROM (SELECT t.route_id, COALESCE(bus.bus_type, 'UNKNOWN') AS bus_type, s.offset_minutes, " +
+            "CAST(s.booked_seats AS double precision) / s.total_seats AS load_factor " +
+            "FROM trip_occupancy_snapshot s JOIN trip t ON t.id = s.trip_id JOIN bus ON bus.id = t.bus_id " +
+            "WHERE s.total_seats > 0 AND t.status <> 'CANCELLED' " +
+            "AND t.departure_time >= :windowStart AND t.departure_time < :windowEnd) l " +
+            "GROUP BY l.route_id, l.bus_type, l.offset_minutes", nativeQuery = true)
+    int insertPercentiles(LocalDate windowStart, LocalDate windowEnd, LocalDateTime computedAt);
+}
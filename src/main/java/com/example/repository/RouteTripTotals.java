@@ -0,0 +1,9 @@
+package com.example.repository;
+
+// Trips run on a route and the seats they offered
+public record RouteTripTotals(
+        Long routeId,
+        Long trips,
+        Long seats
+) {
+}
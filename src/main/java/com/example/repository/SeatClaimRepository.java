@@ -0,0 +1,38 @@
+package com.example.repository;
+
+import com.example.model.SeatClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SeatClaimRepository extends JpaRepository<SeatClaim, Long> {
+
+    // Claims every free seat in one statement and returns the ones this booking got
+    @Query(value = "INSERT INTO trip_seat_claims (trip_id, seat_number, booking_id) " +
+            "SELECT :tripId, s, :bookingId FROM generate_series(1, :totalSeats) s WHERE s IN (:seatNumbers) " +
+            "ON CONFLICT (trip_id, seat_number) DO NOTHING RETURNING seat_number", nativeQuery = true)
+    List<Integer> claimSeats(Long tripId, Long bookingId, int totalSeats, Collection<Integer> seatNumbers);
+
+    @Modifying
+    @Query("DELETE FROM SeatClaim c WHERE c.bookingId = :bookingId")
+    int deleteByBookingId(Long bookingId);
+
+    @Modifying
+    @Query("DELETE FROM SeatClaim c WHERE c.bookingId IN :bookingIds")
+    int deleteByBookingIdIn(Collection<Long> bookingIds);
+
+    // Claims for bookings made before the claim table existed
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO trip_seat_claims (trip_id, seat_number, booking_id) " +
+            "SELECT b.trip_id, bs.seat_number, b.id FROM booking b JOIN booking_seats bs ON bs.booking_id = b.id " +
+            "WHERE b.status IN ('PENDING', 'CONFIRMED') " +
+            "ON CONFLICT (trip_id, seat_number) DO NOTHING", nativeQuery = true)
+    int backfillFromBookings();
+}
@@ -0,0 +1,17 @@
+package com.example.repository;
+
+import java.time.LocalDateTime;
+
+// What the timetable index needs from a trip row
+public record TimetableRow(
+        Long tripId,
+        String origin,
+        String destination,
+        Long departureParkId,
+        Long arrivalParkId,
+        LocalDateTime departureTime,
+        LocalDateTime arrivalTime,
+        double amount,
+        int availableSeats
+) {
+}
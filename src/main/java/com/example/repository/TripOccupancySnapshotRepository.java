@@ -0,0 +1,24 @@
+package com.example.repository;
+
+import com.example.model.TripOccupancySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TripOccupancySnapshotRepository extends JpaRepository<TripOccupancySnapshot, Long> {
+
+    // Snapshots every trip departing in (since, until] that has none yet at this offset
+    @Modifying
+    @Query(value = "INSERT INTO trip_occupancy_snapshot (trip_id, offset_minutes, taken_at, booked_seats, total_seats) " +
+            "SELECT t.id, :offsetMinutes, :takenAt, " +
+            "(SELECT COUNT(*) FROM booking b JOIN booking_seats s ON s.booking_id = b.id " +
+            "WHERE b.trip_id = t.id AND b.status = 'CONFIRMED'), bus.total_seats " +
+            "FROM trip t JOIN bus ON bus.id = t.bus_id " +
+            "WHERE t.departure_time > :since AND t.departure_time <= :until AND t.status <> 'CANCELLED' " +
+            "ON CONFLICT (trip_id, offset_minutes) DO NOTHING", nativeQuery = true)
+    int recordSnapshots(int offsetMinutes, LocalDateTime takenAt, LocalDateTime since, LocalDateTime until);
+}
@@ -2,14 +2,16 @@ package com.example.repository;
 
 import com.example.model.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface TripRepository extends JpaRepository<Trip, Long> {
+public interface TripRepository extends JpaRepository<Trip, Long>, TripSearchRepository {
     List<Trip> findByBus(Bus bus);
     List<Trip> findByRoute(Route route);
     List<Trip> findByDepartureTimeBetween(LocalDateTime start, LocalDateTime end);
@@ -21,4 +23,53 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
 
     @Query("SELECT t FROM Trip t WHERE t.route.origin = :origin AND t.route.destination = :destination AND t.departureTime BETWEEN :startTime AND :endTime AND t.active = true AND t.status = 'SCHEDULED'")
     List<Trip> findTripsForSearch(String origin, String destination, LocalDateTime startTime, LocalDateTime endTime);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.example.repository.TimetableRow(t.id, r.origin, r.destination, t.departurePark.id, t.arrivalPark.id, t.departureTime, t.arrivalTime, t.amount, t.availableSeats) " +
+            "FROM Trip t JOIN t.route r WHERE t.departureTime >= :fromTime AND t.active = true AND t.status = 'SCHEDULED'")
+    List<TimetableRow> findTimetableRows(LocalDateTime fromTime);
+
+    @Query("SELECT new com.example.repository.BusSlotRow(t.id, t.bus.id, t.departureTime, t.arrivalTime) " +
+            "FROM Trip t WHERE t.active = true AND t.status IN ('SCHEDULED', 'IN_PROGRESS')")
+    List<BusSlotRow> findBusSlots();
+
+    @Query("SELECT new com.example.repository.BusSlotRow(t.id, t.bus.id, t.departureTime, t.arrivalTime) " +
+            "FROM Trip t WHERE t.bus.id = :busId AND t.active = true AND t.status IN ('SCHEDULED', 'IN_PROGRESS') " +
+            "AND t.departureTime < :toTime AND t.arrivalTime > :fromTime")
+    List<BusSlotRow> findBusSlotsBetween(Long busId, LocalDateTime fromTime, LocalDateTime toTime);
+
+    // Authoritative conflict check; pass the trip being moved as excludeTripId, or 0
+    @Query("SELECT COUNT(t) > 0 FROM Trip t WHERE t.bus.id = :busId AND t.id <> :excludeTripId " +
+            "AND t.active = true AND t.status IN ('SCHEDULED', 'IN_PROGRESS') " +
+            "AND t.departureTime < :toTime AND t.arrivalTime > :fromTime")
+    boolean existsOverlapping(Long busId, LocalDateTime fromTime, LocalDateTime toTime, Long excludeTripId);
+
+    // Departure and arrival instants the status scheduler has to act on before the given time
+    @Query("SELECT t.departureTime FROM Trip t WHERE t.status = 'SCHEDULED' AND t.departureTime < :until")
+    List<LocalDateTime> findDeparturesBefore(LocalDateTime until);
+
+    @Query("SELECT t.arrivalTime FROM Trip t WHERE t.status IN ('SCHEDULED', 'IN_PROGRESS') AND t.arrivalTime < :until")
+    List<LocalDateTime> findArrivalsBefore(LocalDateTime until);
+
+    // Set-based status transitions; bump the version so stale entity saves fail instead of undoing them
+    @Query(value = "UPDATE trip SET status = 'IN_PROGRESS', version = version + 1 " +
+            "WHERE status = 'SCHEDULED' AND departure_time <= :now AND arrival_time > :now RETURNING id",
+            nativeQuery = true)
+    List<Long> startDepartedTrips(LocalDateTime now);
+
+    @Query(value = "UPDATE trip SET status = 'COMPLETED', version = version + 1 " +
+            "WHERE status = :fromStatus AND arrival_time <= :now RETURNING id",
+            nativeQuery = true)
+    List<Long> completeArrivedTrips(String fromStatus, LocalDateTime now);
+
+    @Query("SELECT new com.example.repository.RouteTripTotals(t.route.id, COUNT(t), SUM(t.bus.totalSeats)) " +
+            "FROM Trip t GROUP BY t.route.id")
+    List<RouteTripTotals> sumTripsByRoute();
+
+    @Query("SELECT t.id FROM Trip t WHERE t.id IN :ids")
+    List<Long> findIdsByIdIn(Collection<Long> ids);
+
+    // Set-based counter update, does not bump the Trip version
+    @Modifying
+    @Query("UPDATE Trip t SET t.availableSeats = t.availableSeats + :delta WHERE t.id = :tripId")
+    int adjustAvailableSeats(Long tripId, int delta);
+}
@@ -0,0 +1,21 @@
+package com.example.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for a trip search page. Null filters are ignored; the cursor
+ * fields hold the (departureTime, id) of the last row already returned.
+ */
+public record TripSearchCriteria(
+        String origin,
+        String destination,
+        LocalDateTime from,
+        LocalDateTime to,
+        Double minPrice,
+        Double maxPrice,
+        String busType,
+        Integer minSeats,
+        LocalDateTime afterDepartureTime,
+        Long afterId
+) {
+}
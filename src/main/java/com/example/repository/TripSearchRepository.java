@@ -0,0 +1,9 @@
+package com.example.repository;
+
+import java.util.List;
+
+public interface TripSearchRepository {
+
+    // Bookable trips matching the criteria, ordered by (departureTime, id), at most limit rows
+    List<TripSearchRow> searchTrips(TripSearchCriteria criteria, int limit);
+}
@@ -0,0 +1,80 @@
+package com.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One JPQL query per page: joins to bus, route and parks are selected
+ * into a TripSearchRow, and paging seeks past the last (departureTime, id)
+ * instead of using OFFSET, so every page costs the same.
+ */
+public class TripSearchRepositoryImpl implements TripSearchRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TripSearchRow> searchTrips(TripSearchCriteria criteria, int limit) {
+        StringBuilder jpql = new StringBuilder("""
+                SELECT new com.example.repository.TripSearchRow(
+                    t.id, b.id, b.plateNumber, b.busType, b.totalSeats, t.availableSeats,
+                    r.id, r.origin, r.destination, r.distanceKm,
+                    dp.id, dp.name, ap.id, ap.name,
+                    t.departureTime, t.arrivalTime, t.amount, t.status, t.active, t.createdAt)
+                FROM Trip t
+                JOIN t.bus b
+                JOIN t.route r
+                LEFT JOIN t.departurePark dp
+                LEFT JOIN t.arrivalPark ap
+                WHERE t.active = true AND t.status = com.example.model.TripStatus.SCHEDULED
+                """);
+        Map<String, Object> params = new HashMap<>();
+
+        if (criteria.origin() != null) {
+            jpql.append(" AND r.origin = :origin");
+            params.put("origin", criteria.origin());
+        }
+        if (criteria.destination() != null) {
+            jpql.append(" AND r.destination = :destination");
+            params.put("destination", criteria.destination());
+        }
+        if (criteria.from() != null) {
+            jpql.append(" AND t.departureTime >= :from");
+            params.put("from", criteria.from());
+        }
+        if (criteria.to() != null) {
+            jpql.append(" AND t.departureTime < :to");
+            params.put("to", criteria.to());
+        }
+        if (criteria.minPrice() != null) {
+            jpql.append(" AND t.amount >= :minPrice");
+            params.put("minPrice", criteria.minPrice());
+        }
+        if (criteria.maxPrice() != null) {
+            jpql.append(" AND t.amount <= :maxPrice");
+            params.put("maxPrice", criteria.maxPrice());
+        }
+        if (criteria.busType() != null) {
+            jpql.append(" AND b.busType = :busType");
+            params.put("busType", criteria.busType());
+        }
+        if (criteria.minSeats() != null) {
+            jpql.append(" AND t.availableSeats >= :minSeats");
+            params.put("minSeats", criteria.minSeats());
+        }
+        if (criteria.afterDepartureTime() != null && criteria.afterId() != null) {
+            jpql.append(" AND (t.departureTime > :afterTime OR (t.departureTime = :afterTime AND t.id > :afterId))");
+            params.put("afterTime", criteria.afterDepartureTime());
+            params.put("afterId", criteria.afterId());
+        }
+        jpql.append(" ORDER BY t.departureTime, t.id");
+
+        TypedQuery<TripSearchRow> query = entityManager.createQuery(jpql.toString(), TripSearchRow.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.repository;
+
+import com.example.model.TripStatus;
+
+import java.time.LocalDateTime;
+
+// Flat search result, one row per trip with exactly what TripResponse shows
+public record TripSearchRow(
+        Long id,
+        Long busId,
+        String busPlateNumber,
+        String busType,
+        int totalSeats,
+        int availableSeats,
+        Long routeId,
+        String origin,
+        String destination,
+        double distanceKm,
+        Long departureParkId,
+        String departureParkName,
+        Long arrivalParkId,
+        String arrivalParkName,
+        LocalDateTime departureTime,
+        LocalDateTime arrivalTime,
+        double amount,
+        TripStatus status,
+        boolean active,
+        LocalDateTime createdAt
+) {
+}
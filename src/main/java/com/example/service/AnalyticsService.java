@@ -4,7 +4,6 @@ import com.example.dto.RouteAnalyticsDTO;
 import com.example.exception.UnauthorizedException;
 import com.example.model.*;
 import com.example.repository.RouteRepository;
-import com.example.repository.TripRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -15,8 +14,10 @@ import java.util.List;
 public class AnalyticsService {
     private final RouteRepository routeRepository;
     private final CurrentUserService currentUserService;
-    private final TripRepository tripRepository;
+    private final RouteStatsService routeStatsService;
+    private final OccupancyService occupancyService;
 
+    // One counter lookup per route, no trips or bookings are loaded
     public List<RouteAnalyticsDTO> getRouteAnalytics() {
         User user = currentUserService.getCurrentUser();
         if(user.getRole() != Role.ADMIN && user.getRole() != Role.SUPER_ADMIN) {
@@ -26,46 +27,30 @@ public class AnalyticsService {
 
         return routes.stream()
                 .map(route -> {
-                    List<Trip> trips = route.getTrips();
-                    List<Booking> bookings = trips.stream()
-                            .flatMap(t -> t.getBookings().stream())
-                            .toList();
-
-                    var totalBookings = bookings.size();
-                    long cancelled = bookings.stream()
-                            .filter(b -> b.getStatus() == BookingStatus.CANCELLED).count();
-                    long confirmed = bookings.stream().filter(t -> t.getStatus() == BookingStatus.CONFIRMED).count();
-                    long pending = bookings.stream().filter(t -> t.getStatus() == BookingStatus.PENDING).count();
-
-                    double totalRevenue = bookings.stream()
-                            .filter(b -> b.getStatus() == BookingStatus.CONFIRMED)
-                            .mapToDouble(Booking::getTotalAmount)
-                            .sum();
-                    double avgRevenuePerTrip = trips.isEmpty() ? 0 : totalRevenue / trips.size();
-                    double avgRevenuePerBooking = (confirmed == 0) ? 0 : totalRevenue / bookings.size();
-
-                    double averageOccupancy = trips.stream()
-                            .mapToDouble( trip -> {
-                                int totalSeats = trip.getBus().getTotalSeats();
-                                int bookedSeats = (int)trip.getBookings().stream()
-                                        .filter( b -> b.getStatus() == BookingStatus.CONFIRMED).count();
-
-                                return totalSeats > 0 ? (double) bookedSeats / totalSeats : 0;
-                                    }
-                            ).average().orElse(0);
+                    RouteStatsService.RouteStats stats = routeStatsService.get(route.getId());
+
+                    long totalBookings = stats.totalBookings();
+                    double totalRevenue = stats.confirmedRevenue();
+                    double avgRevenuePerTrip = stats.trips() == 0 ? 0 : totalRevenue / stats.trips();
+                    // Revenue only comes from confirmed bookings
+                    double avgRevenuePerBooking = stats.confirmedBookings() == 0 ? 0 : totalRevenue / stats.confirmedBookings();
+                    // Load factor at departure from the occupancy report; before the first report, seats sold over seats offered
+                    Double departureLoad = occupancyService.getDepartureLoad(route.getId());
+                    double averageOccupancy = departureLoad != null ? departureLoad
+                            : stats.offeredSeats() == 0 ? 0 : (double) stats.confirmedSeats() / stats.offeredSeats();
 
                     return new RouteAnalyticsDTO(
                             route.getId(),
                             route.getOrigin() + " -> "+route.getDestination(),
                             totalBookings,
-                            confirmed,
-                            pending,
-                            cancelled,
+                            stats.confirmedBookings(),
+                            stats.pendingBookings(),
+                            stats.cancelledBookings(),
                             totalRevenue,
                             avgRevenuePerTrip,
                             avgRevenuePerBooking,
                             averageOccupancy,
-                            trips.size()
+                            stats.trips()
                     );
                 }).toList();
     }
@@ -0,0 +1,286 @@
+package com.example.service;
+
+import com.example.dto.responses.DistinctPassengersResponse;
+import com.example.dto.responses.TopItemResponse;
+import com.example.dto.responses.TopItemsResponse;
+import com.example.exception.InvalidInputException;
+import com.example.model.BookingStatus;
+import com.example.model.BusPark;
+import com.example.model.Route;
+import com.example.repository.BusParkRepository;
+import com.example.repository.RouteRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Approximate analytics over confirmed bookings: distinct passengers per
+ * route per month (HyperLogLog, 2 KB per route-month) and the busiest
+ * routes and departure parks per day (Space-Saving). Sketches are updated
+ * from this node's confirmation events and merged across buckets at query
+ * time. They are built from completed payments at startup, and the current
+ * and previous month are re-read every 15 minutes, which brings in the
+ * confirmations made on other nodes; the stated bounds hold for the
+ * confirmations seen so far.
+ */
+@Service
+public class AnalyticsSketchService {
+    static final int MONTHS_KEPT = 13;
+    static final int DAYS_KEPT = 62;
+    static final int TOP_CAPACITY = 128; // counters per day; counts are off by at most 1/128 of the total
+    private static final int MAX_LIMIT = 50;
+    // Confirmations this close before a rebuild starts may also arrive as events during it
+    private static final long JOURNAL_MARGIN_MINUTES = 10;
+    private static final String CONFIRMATIONS = "SELECT b.user_id, t.route_id, t.departure_park_id, p.payment_time, b.id "
+            + "FROM payment p JOIN booking b ON b.id = p.booking_id JOIN trip t ON t.id = b.trip_id "
+            + "WHERE p.status = 'COMPLETED' AND p.payment_time >= ? AND p.payment_time < ?";
+
+    private final RouteRepository routeRepository;
+    private final BusParkRepository busParkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private volatile Sketches sketches = new Sketches();
+    // Confirmations received while a rebuild is reading, replayed over its result; null when not rebuilding
+    private List<BookingStatusChangedEvent> rebuildJournal;
+
+    private record RouteMonth(Long routeId, YearMonth month) {
+    }
+
+    private static final class Sketches {
+        final Map<RouteMonth, HyperLogLog> passengers = new ConcurrentHashMap<>();
+        final Map<LocalDate, SpaceSaving> routes = new ConcurrentHashMap<>();
+        final Map<LocalDate, SpaceSaving> parks = new ConcurrentHashMap<>();
+
+        void add(Long userId, Long routeId, Long departureParkId, LocalDateTime confirmedAt) {
+            LocalDate day = confirmedAt.toLocalDate();
+            if (userId != null) {
+                passengers.computeIfAbsent(new RouteMonth(routeId, YearMonth.from(day)), key -> new HyperLogLog())
+                        .add(userId);
+            }
+            routes.computeIfAbsent(day, key -> new SpaceSaving(TOP_CAPACITY)).add(routeId, 1);
+            if (departureParkId != null) {
+                parks.computeIfAbsent(day, key -> new SpaceSaving(TOP_CAPACITY)).add(departureParkId, 1);
+            }
+        }
+    }
+
+    public AnalyticsSketchService(RouteRepository routeRepository,
+                                  BusParkRepository busParkRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager) {
+        this.routeRepository = routeRepository;
+        this.busParkRepository = busParkRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        if (event.status() == BookingStatus.CONFIRMED) {
+            synchronized (this) {
+                sketches.add(event.userId(), event.routeId(), event.departureParkId(), event.changedAt());
+                if (rebuildJournal != null) {
+                    rebuildJournal.add(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimated distinct passengers per route over the months from 'from' to
+     * 'to' inclusive, for every route or just one.
+     */
+    public List<DistinctPassengersResponse> getDistinctPassengers(YearMonth from, YearMonth to, Long routeId) {
+        YearMonth oldest = YearMonth.now().minusMonths(MONTHS_KEPT - 1);
+        if (to.isBefore(from) || from.isBefore(oldest)) {
+            throw new InvalidInputException("Months must be ordered and no earlier than " + oldest);
+        }
+        Map<Long, HyperLogLog> byRoute = new HashMap<>();
+        sketches.passengers.forEach((key, sketch) -> {
+            if ((routeId == null || routeId.equals(key.routeId()))
+                    && !key.month().isBefore(from) && !key.month().isAfter(to)) {
+                byRoute.computeIfAbsent(key.routeId(), id -> new HyperLogLog()).merge(sketch);
+            }
+        });
+        Map<Long, String> names = routeNames(byRoute.keySet());
+        double error = HyperLogLog.RELATIVE_STANDARD_ERROR;
+        return byRoute.entrySet().stream()
+                .map(entry -> {
+                    long estimate = entry.getValue().estimate();
+                    return new DistinctPassengersResponse(entry.getKey(), names.get(entry.getKey()), estimate, error,
+                            Math.round(estimate * (1 - 2 * error)), Math.round(estimate * (1 + 2 * error)));
+                })
+                .sorted(Comparator.comparingLong(DistinctPassengersResponse::getEstimate).reversed())
+                .toList();
+    }
+
+    public TopItemsResponse getTopRoutes(LocalDate from, LocalDate to, int limit) {
+        return top(sketches.routes, from, to, limit, this::routeNames);
+    }
+
+    public TopItemsResponse getTopDepartureParks(LocalDate from, LocalDate to, int limit) {
+        return top(sketches.parks, from, to, limit, this::parkNames);
+    }
+
+    private TopItemsResponse top(Map<LocalDate, SpaceSaving> days, LocalDate from, LocalDate to, int limit,
+                                 Function<Collection<Long>, Map<Long, String>> names) {
+        LocalDate oldest = LocalDate.now().minusDays(DAYS_KEPT - 1);
+        if (to.isBefore(from) || from.isBefore(oldest)) {
+            throw new InvalidInputException("Dates must be ordered and no earlier than " + oldest);
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidInputException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        SpaceSaving merged = new SpaceSaving(TOP_CAPACITY);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            SpaceSaving sketch = days.get(day);
+            if (sketch != null) {
+                merged.merge(sketch);
+            }
+        }
+        List<SpaceSaving.Item> items = merged.top(limit);
+        Map<Long, String> itemNames = names.apply(items.stream().map(SpaceSaving.Item::item).toList());
+        return new TopItemsResponse(from, to, merged.total(), merged.minCount(), items.stream()
+                .map(item -> new TopItemResponse(item.item(), itemNames.get(item.item()),
+                        item.count(), item.count() - item.error()))
+                .toList());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+    }
+
+    // Picks up confirmations made on other nodes
+    @Scheduled(fixedRate = 900000, initialDelay = 900000) // Every 15 minutes
+    public void refresh() {
+        rebuild(YearMonth.now().minusMonths(1));
+    }
+
+    public long rebuild() {
+        return rebuild(YearMonth.now().minusMonths(MONTHS_KEPT - 1));
+    }
+
+    /**
+     * Recompute the sketches from the given month on from completed payments,
+     * one month per short read-only transaction, and swap them in for those
+     * buckets. Confirmations received meanwhile are journalled and replayed
+     * unless the read already saw their payment. Returns the confirmations read.
+     */
+    public long rebuild(YearMonth from) {
+        synchronized (this) {
+            if (rebuildJournal != null) {
+                return 0; // already running
+            }
+            rebuildJournal = new ArrayList<>();
+        }
+        try {
+            LocalDateTime recentSince = LocalDateTime.now().minusMinutes(JOURNAL_MARGIN_MINUTES);
+            Sketches fresh = new Sketches();
+            Set<Long> recentBookings = new HashSet<>();
+            long read = 0;
+            for (YearMonth month = from; !month.isAfter(YearMonth.now()); month = month.plusMonths(1)) {
+                Timestamp start = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+                Timestamp end = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+                Long count = readOnlyTransaction.execute(status -> jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(CONFIRMATIONS,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(1000);
+                    ps.setTimestamp(1, start);
+                    ps.setTimestamp(2, end);
+                    return ps;
+                }, rs -> {
+                    long n = 0;
+                    while (rs.next()) {
+                        LocalDateTime paidAt = rs.getTimestamp(4).toLocalDateTime();
+                        fresh.add(rs.getObject(1, Long.class), rs.getLong(2), rs.getObject(3, Long.class), paidAt);
+                        if (!paidAt.isBefore(recentSince)) {
+                            recentBookings.add(rs.getLong(5));
+                        }
+                        n++;
+                    }
+                    return n;
+                }));
+                read += count != null ? count : 0;
+            }
+            LocalDate firstDay = from.atDay(1);
+            synchronized (this) {
+                for (BookingStatusChangedEvent event : rebuildJournal) {
+                    if (!recentBookings.contains(event.bookingId())) {
+                        fresh.add(event.userId(), event.routeId(), event.departureParkId(), event.changedAt());
+                    }
+                }
+                // Buckets before the rebuilt range are kept as they are
+                Sketches current = sketches;
+                current.passengers.forEach((key, sketch) -> {
+                    if (key.month().isBefore(from)) {
+                        fresh.passengers.putIfAbsent(key, sketch);
+                    }
+                });
+                current.routes.forEach((day, sketch) -> {
+                    if (day.isBefore(firstDay)) {
+                        fresh.routes.putIfAbsent(day, sketch);
+                    }
+                });
+                current.parks.forEach((day, sketch) -> {
+                    if (day.isBefore(firstDay)) {
+                        fresh.parks.putIfAbsent(day, sketch);
+                    }
+                });
+                sketches = fresh;
+            }
+            prune();
+            System.out.println("Built analytics sketches from " + read + " confirmations since " + from);
+            return read;
+        } catch (Exception e) {
+            System.err.println("Error building analytics sketches: " + e.getMessage());
+            return 0;
+        } finally {
+            synchronized (this) {
+                rebuildJournal = null;
+            }
+        }
+    }
+
+    // Drop buckets that have aged out of the query window
+    @Scheduled(fixedRate = 3600000) // Every hour
+    public void prune() {
+        YearMonth oldestMonth = YearMonth.now().minusMonths(MONTHS_KEPT - 1);
+        LocalDate oldestDay = LocalDate.now().minusDays(DAYS_KEPT - 1);
+        Sketches current = sketches;
+        current.passengers.keySet().removeIf(key -> key.month().isBefore(oldestMonth));
+        current.routes.keySet().removeIf(day -> day.isBefore(oldestDay));
+        current.parks.keySet().removeIf(day -> day.isBefore(oldestDay));
+    }
+
+    private Map<Long, String> routeNames(Collection<Long> ids) {
+        Map<Long, String> names = new HashMap<>();
+        for (Route route : routeRepository.findAllById(ids)) {
+            names.put(route.getId(), route.getOrigin() + " -> " + route.getDestination());
+        }
+        return names;
+    }
+
+    private Map<Long, String> parkNames(Collection<Long> ids) {
+        Map<Long, String> names = new HashMap<>();
+        for (BusPark park : busParkRepository.findAllById(ids)) {
+            names.put(park.getId(), park.getName());
+        }
+        return names;
+    }
+}
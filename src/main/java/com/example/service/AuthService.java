@@ -4,10 +4,8 @@ import com.example.exception.EmailAlreadyRegisteredException;
 import com.example.exception.CredentialsException;
 import com.example.exception.ResourceNotFoundException;
 import com.example.exception.TokenException;
-import com.example.model.RefreshToken;
 import com.example.model.User;
 import com.example.model.Role;
-import com.example.repository.RefreshTokenRepository;
 import com.example.repository.UserRepository;
 import com.example.dto.requests.RegisterRequest;
 import com.example.dto.requests.LoginRequest;
@@ -15,20 +13,20 @@ import com.example.dto.responses.AuthResponse;
 import com.example.config.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtil jwtUtil;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
 
     @Transactional
     public AuthResponse register(RegisterRequest registerRequest, HttpServletRequest req) {
@@ -38,64 +36,71 @@ public class AuthService {
         User user = new User();
         user.setFullName(registerRequest.getFullName());
         user.setEmail(registerRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
+        user.setPassword(passwordHashingService.hash(registerRequest.getPassword()));
         user.setPhone(registerRequest.getPhone());
         user.setRole(Role.USER);
         user.setCreatedAt(java.time.LocalDateTime.now());
-        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), user.getRole().name());
-        RefreshToken refreshToken = createRefreshToken(user,req);
         userRepository.save(user);
-        return new AuthResponse(accessToken, refreshToken.getToken(), user.getRole().name());
+        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), user.getRole().name());
+        IssuedRefreshToken refreshToken = createRefreshToken(user, req);
+        return new AuthResponse(accessToken, refreshToken.token(), user.getRole().name());
     }
 
     public AuthResponse login(LoginRequest request, HttpServletRequest req) {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new CredentialsException("Invalid credentials"));
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new CredentialsException("Invalid credentials");
         }
+        // Re-hash passwords stored with an older work factor
+        if (passwordHashingService.needsUpgrade(user.getPassword())) {
+            user.setPassword(passwordHashingService.hash(request.getPassword()));
+        }
         String accessToken = jwtUtil.generateAccessToken(user.getEmail(), user.getRole().name());
-        RefreshToken refreshTokenEntity = createRefreshToken(user, req);
+        IssuedRefreshToken refreshToken = createRefreshToken(user, req);
         userRepository.save(user);
-        return new AuthResponse(accessToken, refreshTokenEntity.getToken(), user.getRole().name());
+        return new AuthResponse(accessToken, refreshToken.token(), user.getRole().name());
+    }
+
+    public IssuedRefreshToken createRefreshToken(User user, HttpServletRequest request) {
+        IssuedRefreshToken refreshToken = newRefreshToken(user, request);
+        refreshTokenStore.save(refreshToken);
+        return refreshToken;
     }
 
-    public RefreshToken createRefreshToken(User user, HttpServletRequest request) {
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setUser(user);
-        refreshToken.setToken(UUID.randomUUID().toString());
-        refreshToken.setExpiryDate(LocalDateTime.now().plusDays(7));
-        refreshToken.setIssuedIp(request.getRemoteAddr());
-        refreshToken.setDeviceInfo(request.getHeader("User-Agent"));
-        return refreshTokenRepository.save(refreshToken);
+    private IssuedRefreshToken newRefreshToken(User user, HttpServletRequest request) {
+        return new IssuedRefreshToken(UUID.randomUUID().toString(), user.getId(), LocalDateTime.now().plusDays(7),
+                request.getRemoteAddr(), request.getHeader("User-Agent"));
     }
 
     @Transactional
     public AuthResponse refreshToken(String token, HttpServletRequest req) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(token);
+        IssuedRefreshToken refreshToken = refreshTokenStore.find(token);
         if (refreshToken == null)
             throw new ResourceNotFoundException("Refresh token not found");
 
-        if (refreshToken.getExpiryDate().isBefore(LocalDateTime.now())) {
-            refreshTokenRepository.delete(refreshToken);
+        if (refreshToken.isExpired()) {
+            refreshTokenStore.delete(token);
             throw new TokenException("Refresh token expired");
         }
 
         String currentIp = req.getRemoteAddr();
         String currentDevice = req.getHeader("User-Agent");
-        if (!refreshToken.getIssuedIp().equals(currentIp) ||
-                !refreshToken.getDeviceInfo().equals(currentDevice)) {
+        if (!Objects.equals(refreshToken.issuedIp(), currentIp) ||
+                !Objects.equals(refreshToken.deviceInfo(), currentDevice)) {
             // Potential token theft - consider logging this security event
             throw new SecurityException("Potential refresh token theft detected");
         }
-        // Generate new access token
-        User user = refreshToken.getUser();
-        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), user.getRole().name());
+        User user = userRepository.findById(refreshToken.userId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        //Issue new token and invalidate old one
-        refreshTokenRepository.delete(refreshToken);
-        RefreshToken refreshTokenEntity = createRefreshToken(user, req);
+        // Swap old for new in one step; a token raced by another refresh is refused
+        IssuedRefreshToken replacement = newRefreshToken(user, req);
+        if (refreshTokenStore.rotate(token, replacement) == null) {
+            throw new TokenException("Refresh token already used");
+        }
 
-        return new AuthResponse(accessToken, refreshTokenEntity.getToken(), user.getRole().name());
+        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), user.getRole().name());
+        return new AuthResponse(accessToken, replacement.token(), user.getRole().name());
     }
 }
\ No newline at end of file
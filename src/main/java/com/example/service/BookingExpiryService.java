@@ -0,0 +1,126 @@
+package com.example.service;
+
+import com.example.model.Booking;
+import com.example.model.BookingStatus;
+import com.example.repository.BookingExpiryView;
+import com.example.repository.BookingRepository;
+import com.example.repository.TripRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Releases PENDING bookings when their hold runs out. Deadlines sit in a
+ * one-second timing wheel that is rebuilt from the database at startup;
+ * everything due in a tick is expired with one UPDATE.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingExpiryService {
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 1024; // ~17 minutes per revolution
+
+    private final BookingRepository bookingRepository;
+    private final TripRepository tripRepository;
+    private final SeatClaimService seatClaimService;
+    private final SeatInventoryService seatInventoryService;
+    private final WebSocketService webSocketService;
+    private final TransactionTemplate transactionTemplate;
+    private final SeatHoldStore seatHoldStore;
+    private final TimetableIndex timetableIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingExpiryWheel expiryWheel = new BookingExpiryWheel(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+
+    // Track a new hold once its booking has committed
+    public void schedule(Booking booking) {
+        Long bookingId = booking.getId();
+        long deadline = toMillis(booking.getExpiryTime());
+        TransactionHooks.afterCommit(() -> expiryWheel.schedule(bookingId, deadline));
+    }
+
+    public void cancel(Long bookingId) {
+        TransactionHooks.afterCommit(() -> expiryWheel.cancel(bookingId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<BookingExpiryView> pending = bookingRepository.findByStatus(BookingStatus.PENDING);
+        for (BookingExpiryView booking : pending) {
+            if (booking.getExpiryTime() != null) {
+                expiryWheel.schedule(booking.getId(), toMillis(booking.getExpiryTime()));
+            }
+        }
+        System.out.println("Expiry wheel rebuilt with " + pending.size() + " pending bookings");
+    }
+
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void tick() {
+        List<Long> due = expiryWheel.advance(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> expireBookings(due));
+        } catch (Exception e) {
+            // Put them back so the next tick retries
+            System.err.println("Error expiring bookings " + due + ": " + e.getMessage());
+            long retryAt = System.currentTimeMillis() + TICK_MILLIS;
+            due.forEach(id -> expiryWheel.schedule(id, retryAt));
+        }
+    }
+
+    /**
+     * Expire the given bookings if they are still pending and past their
+     * expiry time. Must run inside a transaction. Returns the number expired.
+     */
+    public int expireBookings(Collection<Long> bookingIds) {
+        List<Long> expiredIds = bookingRepository.expirePending(bookingIds, LocalDateTime.now());
+        if (expiredIds.isEmpty()) {
+            return 0;
+        }
+        List<Booking> expired = bookingRepository.findWithSeatsByIdIn(expiredIds);
+        seatClaimService.releaseAll(expiredIds);
+
+        // One counter update, seat map release and seat message per trip
+        Map<Long, List<Integer>> seatsByTrip = new HashMap<>();
+        for (Booking booking : expired) {
+            seatsByTrip.computeIfAbsent(booking.getTrip().getId(), id -> new ArrayList<>())
+                    .addAll(booking.getSeatNumbers());
+        }
+        seatsByTrip.forEach((tripId, seats) -> {
+            tripRepository.adjustAvailableSeats(tripId, seats.size());
+            timetableIndex.adjustSeats(tripId, seats.size());
+            seatInventoryService.release(tripId, seats);
+        });
+
+        TransactionHooks.afterCommit(() -> {
+            seatsByTrip.forEach((tripId, seats) -> {
+                Map<Integer, Boolean> seatUpdates = new HashMap<>();
+                for (Integer seatNumber : seats) {
+                    seatUpdates.put(seatNumber, true);
+                }
+                webSocketService.sendSeatUpdate(tripId, seatUpdates);
+            });
+            for (Booking booking : expired) {
+                if (booking.getHoldToken() != null) {
+                    seatHoldStore.release(booking.getTrip().getId(), booking.getSeatNumbers(), booking.getHoldToken());
+                }
+                webSocketService.sendBookingUpdate(booking.getId(), BookingStatus.EXPIRED, "Booking has expired");
+                eventPublisher.publishEvent(BookingStatusChangedEvent.of(booking, BookingStatus.PENDING));
+            }
+        });
+        return expiredIds.size();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
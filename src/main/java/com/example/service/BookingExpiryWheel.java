@@ -0,0 +1,72 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel of pending booking deadlines. Each slot covers one
+ * tick; entries further out than one revolution stay in their slot and are
+ * skipped until their deadline comes round.
+ */
+public class BookingExpiryWheel {
+    private final long tickMillis;
+    private final List<Map<Long, Long>> slots; // bookingId -> deadline
+    private final Map<Long, Integer> slotByBooking = new HashMap<>();
+    private long currentTick;
+
+    public BookingExpiryWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new HashMap<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public synchronized void schedule(Long bookingId, long deadlineMillis) {
+        cancel(bookingId);
+        // First tick at or after the deadline; overdue entries land in the next slot to be processed
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        int slot = (int) (tick % slots.size());
+        slots.get(slot).put(bookingId, deadlineMillis);
+        slotByBooking.put(bookingId, slot);
+    }
+
+    public synchronized void cancel(Long bookingId) {
+        Integer slot = slotByBooking.remove(bookingId);
+        if (slot != null) {
+            slots.get(slot).remove(bookingId);
+        }
+    }
+
+    public synchronized int size() {
+        return slotByBooking.size();
+    }
+
+    /**
+     * Move the wheel up to {@code nowMillis} and return the bookings whose
+     * deadline has passed.
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        List<Long> due = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        // After a long pause one revolution visits every slot
+        long firstTick = Math.max(currentTick + 1, targetTick - slots.size() + 1);
+        for (long tick = firstTick; tick <= targetTick; tick++) {
+            Iterator<Map.Entry<Long, Long>> entries = slots.get((int) (tick % slots.size())).entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Long, Long> entry = entries.next();
+                if (entry.getValue() <= nowMillis) {
+                    due.add(entry.getKey());
+                    slotByBooking.remove(entry.getKey());
+                    entries.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return due;
+    }
+}
@@ -3,133 +3,177 @@ package com.example.service;
 import com.example.dto.SeatAvailabilityDTO;
 import com.example.dto.requests.BookingRequest;
 import com.example.dto.responses.BookingResponse;
+import com.example.dto.responses.SeatResumeResponse;
+import com.example.dto.responses.SeatUpdateMessage;
 import com.example.exception.*;
 import com.example.mappers.BookingMapper;
 import com.example.model.*;
 import com.example.repository.BookingRepository;
 import com.example.repository.TripRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class BookingService {
+    private static final Duration HOLD_DURATION = Duration.ofMinutes(15);
+
     private final BookingRepository bookingRepository;
     private final UserService userService;
     private final WebSocketService webSocketService;
     private final TripRepository tripRepository;
     private final CurrentUserService currentUserService;
     private final BookingMapper bookingMapper;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatClaimService seatClaimService;
+    private final BookingExpiryService bookingExpiryService;
+    private final SeatHoldStore seatHoldStore;
+    private final TripBookingDispatcher tripBookingDispatcher;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Get seat availability for a trip
      */
     public SeatAvailabilityDTO getSeatAvailability(Long tripId) {
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
+        // Read before the snapshot; replaying later deltas over it is harmless
+        long sequence = webSocketService.getSeatSequence(tripId);
+        TripSeatMap seatMap = seatInventoryService.getSeatMap(tripId);
 
         // Check if trip is bookable
-        if (!trip.isActive() || trip.getStatus() != TripStatus.SCHEDULED) {
+        if (!seatMap.isBookable()) {
             throw new BadRequestException("Trip is not available for booking");
         }
 
-        //Build Seat Map
-        Map<Integer, Boolean> seatStatus = new HashMap<>();
-
-        // Initialize all seats as available
-        for (int i = 1; i <= trip.getBus().getTotalSeats(); i++) {
-            seatStatus.put(i, true);
-        }
-
-        // Mark booked seats as unavailable
-        List<Booking> bookings = bookingRepository.findByTrip(trip);
-        for (Booking booking : bookings) {
-            if (booking.getStatus() != BookingStatus.CANCELLED) {
-                for (Integer seatNumber : booking.getSeatNumbers()) {
-                    seatStatus.put(seatNumber, false);
-                }
+        // Merge holds placed through other instances
+        Map<Integer, Boolean> seatStatus = seatMap.toSeatStatus();
+        int availableSeats = seatMap.getAvailableSeats();
+        for (Integer seatNumber : seatHoldStore.heldSeats(tripId)) {
+            if (Boolean.TRUE.equals(seatStatus.replace(seatNumber, false))) {
+                availableSeats--;
             }
         }
 
         return new SeatAvailabilityDTO(
                 tripId,
-                trip.getBus().getTotalSeats(),
-                trip.getAvailableSeats(),
-                seatStatus
+                seatMap.getTotalSeats(),
+                availableSeats,
+                seatStatus,
+                sequence
         );
     }
 
+    /**
+     * Catch a reconnecting client up from the last seat sequence it saw.
+     * Sends the missed deltas when they are still in the log, otherwise a
+     * fresh snapshot.
+     */
+    public SeatResumeResponse resumeSeatUpdates(Long tripId, long sinceSequence) {
+        List<SeatUpdateMessage> deltas = webSocketService.getSeatUpdatesSince(tripId, sinceSequence);
+        if (deltas == null) {
+            SeatAvailabilityDTO snapshot = getSeatAvailability(tripId);
+            return new SeatResumeResponse(tripId, snapshot.getSequence(), List.of(), snapshot);
+        }
+        long sequence = deltas.isEmpty() ? sinceSequence : deltas.get(deltas.size() - 1).getSequence();
+        return new SeatResumeResponse(tripId, sequence, deltas, null);
+    }
+
+    // Validated here, written by the trip's single writer in TripBookingDispatcher
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BookingResponse createBooking(BookingRequest bookingRequest) {
-        try{
-            // Get current user and trip
-            User currentUser = currentUserService.getCurrentUser();
-            Trip trip = tripRepository.findById(bookingRequest.getTripId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
-
-            // Validate trip status
-            if (!trip.isActive() || trip.getStatus() != TripStatus.SCHEDULED) {
-                throw new BadRequestException("Trip is not available for booking");
-            }
+        // Get current user and trip
+        User currentUser = currentUserService.getCurrentUser();
+        Trip trip = tripRepository.findById(bookingRequest.getTripId())
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
 
-            // Validate seat numbers
-            List<Integer> seatNumbers = bookingRequest.getSeatNumbers();
-            if (seatNumbers.isEmpty()) {
-                throw new BadRequestException("No seats selected");
-            }
+        // Validate trip status
+        if (!trip.isActive() || trip.getStatus() != TripStatus.SCHEDULED) {
+            throw new BadRequestException("Trip is not available for booking");
+        }
 
-            // Check each seat
-            for (Integer seatNumber : seatNumbers) {
-                // Validate seat number range
-                if (seatNumber < 1 || seatNumber > trip.getBus().getTotalSeats()) {
-                    throw new BadRequestException("Invalid seat number: " + seatNumber);
-                }
-
-                // Check if seat is already booked
-                List<Booking> existingBookings = bookingRepository.findBySeatNumber(trip, seatNumber);
-                if (!existingBookings.isEmpty()) {
-                    throw new ConflictException("Seat " + seatNumber + " is already booked");
-                }
-            }
+        // Validate seat numbers
+        List<Integer> seatNumbers = bookingRequest.getSeatNumbers();
+        if (seatNumbers.isEmpty()) {
+            throw new BadRequestException("No seats selected");
+        }
+        if (seatNumbers.stream().distinct().count() != seatNumbers.size()) {
+            throw new BadRequestException("Duplicate seat numbers selected");
+        }
 
-            double totalAmount = trip.getAmount() * seatNumbers.size();
-
-            // Create booking
-            Booking booking = new Booking();
-            booking.setUser(currentUser);
-            booking.setTrip(trip);
-            booking.setSeatNumbers(seatNumbers);
-            booking.setTotalAmount(totalAmount);
-            booking.setStatus(BookingStatus.PENDING);
-            booking.setBookingTime(LocalDateTime.now());
-            booking.setExpiryTime(LocalDateTime.now().plusMinutes(15));
-
-            // Save booking
-            Booking savedBooking = bookingRepository.save(booking);
-
-            // Update trip's available seats - triggers optimistic locking
-            trip.setAvailableSeats(trip.getAvailableSeats() - seatNumbers.size());
-            tripRepository.save(trip);
-
-            // Notify clients about seat updates
-            Map<Integer, Boolean> seatUpdates = new HashMap<>();
-            for (Integer seatNumber : seatNumbers) {
-                seatUpdates.put(seatNumber, false);
+        // Validate seat number range
+        for (Integer seatNumber : seatNumbers) {
+            if (seatNumber < 1 || seatNumber > trip.getBus().getTotalSeats()) {
+                throw new BadRequestException("Invalid seat number: " + seatNumber);
             }
-            webSocketService.sendSeatUpdate(trip.getId(), seatUpdates);
+        }
+
+        // Hold the seats across all instances before touching the database
+        String holdToken = UUID.randomUUID().toString();
+        List<Integer> takenSeats = seatHoldStore.hold(trip.getId(), seatNumbers, holdToken, HOLD_DURATION);
+        if (!takenSeats.isEmpty()) {
+            throw new ConflictException("Seats " + takenSeats + " are already booked");
+        }
 
-            return bookingMapper.toBookingResponse(savedBooking);
-        }catch (OptimisticLockingException ex){
-            throw new ConflictException("Seat availability has been changed. Please try again");
+        try {
+            return tripBookingDispatcher.execute(trip.getId(),
+                    batch -> placeBooking(batch, currentUser, trip, seatNumbers, holdToken));
+        } catch (RuntimeException e) {
+            // The booking was rejected, rolled back or never ran, so nothing else protects these seats
+            seatHoldStore.release(trip.getId(), seatNumbers, holdToken);
+            throw e;
         }
     }
 
+    // Runs on the trip's writer thread inside the batch transaction
+    private BookingResponse placeBooking(TripBatch batch, User user, Trip trip,
+                                         List<Integer> seatNumbers, String holdToken) {
+        // Claim the seats in the seat map, released again if the batch rolls back
+        List<Integer> takenSeats = seatInventoryService.claim(trip.getId(), seatNumbers);
+        if (!takenSeats.isEmpty()) {
+            throw new ConflictException("Seats " + takenSeats + " are already booked");
+        }
+
+        // Create booking
+        Booking booking = new Booking();
+        booking.setUser(user);
+        booking.setTrip(trip);
+        booking.setSeatNumbers(seatNumbers);
+        booking.setTotalAmount(trip.getAmount() * seatNumbers.size());
+        booking.setStatus(BookingStatus.PENDING);
+        booking.setBookingTime(LocalDateTime.now());
+        booking.setExpiryTime(LocalDateTime.now().plus(HOLD_DURATION));
+        booking.setHoldToken(holdToken);
+        Booking savedBooking = bookingRepository.save(booking);
+
+        // Claim all seats in one statement, a loser undoes its own writes and reports the seats it lost
+        takenSeats = seatClaimService.claim(trip.getId(), savedBooking.getId(),
+                trip.getBus().getTotalSeats(), seatNumbers);
+        if (!takenSeats.isEmpty()) {
+            seatClaimService.release(savedBooking.getId());
+            bookingRepository.delete(savedBooking);
+            // Another instance booked these seats, reload the seat map from the database
+            seatInventoryService.evict(trip.getId());
+            throw new ConflictException("Seats " + takenSeats + " are already booked");
+        }
+
+        batch.adjustAvailableSeats(trip.getId(), -seatNumbers.size());
+        batch.seatsChanged(trip.getId(), seatNumbers, false);
+        bookingExpiryService.schedule(savedBooking);
+        BookingStatusChangedEvent event = BookingStatusChangedEvent.of(savedBooking, null);
+        TransactionHooks.afterCommit(() -> eventPublisher.publishEvent(event));
+
+        return bookingMapper.toBookingResponse(savedBooking);
+    }
+
     public List<BookingResponse> getUserBookings(){
         var currentUser = currentUserService.getCurrentUser();
         List<Booking> bookings = bookingRepository.findByUser(currentUser);
@@ -137,82 +181,95 @@ public class BookingService {
         return bookingMapper.toBookingResponseList(bookings);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BookingResponse cancelBooking(Long bookingId) {
-        try{
-            var currentUser = currentUserService.getCurrentUser();
-            Booking booking = bookingRepository.findById(bookingId)
-                    .orElseThrow(() ->
-                            new ResourceNotFoundException("Booking not found")
-                    );
-            //check ownership
-            if (!booking.getUser().getId().equals(currentUser.getId()) &&
-                    userService.isAdmin(currentUser)) {
-                throw new PermissionException("You don't have permission to cancel this booking");
-            }
+        var currentUser = currentUserService.getCurrentUser();
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() ->
+                        new ResourceNotFoundException("Booking not found")
+                );
+        //check ownership
+        if (!booking.getUser().getId().equals(currentUser.getId()) &&
+                userService.isAdmin(currentUser)) {
+            throw new PermissionException("You don't have permission to cancel this booking");
+        }
+
+        return tripBookingDispatcher.execute(booking.getTrip().getId(), batch -> {
+            // Re-read on the trip's writer so the status check cannot race another mutation
+            Booking current = bookingRepository.findById(bookingId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Booking not found"));
 
             // Check if booking can be cancelled
-            if (booking.getStatus() != BookingStatus.CANCELLED) {
+            if (current.getStatus() == BookingStatus.CANCELLED) {
                 throw new BadRequestException("Booking is already cancelled");
             }
+            if (current.getStatus() == BookingStatus.EXPIRED) {
+                throw new BadRequestException("Booking has already expired");
+            }
 
-            if (booking.getTrip().getDepartureTime().isBefore(LocalDateTime.now())) {
+            if (current.getTrip().getDepartureTime().isBefore(LocalDateTime.now())) {
                 throw new BadRequestException("Cannot cancel a booking for a trip that has already departed");
             }
 
             return processBookings(
-                    booking,
+                    batch,
+                    current,
                     BookingStatus.CANCELLED,
                     "Booking has been cancelled"
             );
-        } catch (OptimisticLockingException e) {
-            throw new ConflictException("Failed to cancel booking");
-        }
+        });
     }
 
     /**
-     * Clear expired bookings (scheduled task)
+     * Safety sweep for expired bookings the expiry wheel did not release
      */
-    @Scheduled(fixedRate = 60000) // Run every minute
+    @Scheduled(fixedRate = 300000) // Every 5 minutes
     @Transactional
     public void clearExpiredBookings() {
         LocalDateTime now = LocalDateTime.now();
-        List<Booking> expiredBookings = bookingRepository.findByStatusAndExpiryTimeBefore(BookingStatus.PENDING, now);
-
-        for (Booking booking : expiredBookings) {
-            try {
-                processBookings(
-                        booking,
-                        BookingStatus.EXPIRED,
-                        "Booking has expired"
-                );
-            } catch (Exception e) {
-                // Log the error but continue with other bookings
-                System.err.println("Error expiring booking " + booking.getId() + ": " + e.getMessage());
-            }
+        List<Long> expiredIds = bookingRepository.findByStatusAndExpiryTimeBefore(BookingStatus.PENDING, now)
+                .stream()
+                .map(Booking::getId)
+                .toList();
+
+        if (!expiredIds.isEmpty()) {
+            bookingExpiryService.expireBookings(expiredIds);
         }
     }
 
-    private BookingResponse processBookings(Booking booking,
+    private BookingResponse processBookings(TripBatch batch,
+                                            Booking booking,
                                             BookingStatus newBookingStatus,
                                             String notificationMessage) {
         // Update booking status
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(newBookingStatus);
         Booking updatedBooking = bookingRepository.save(booking);
+        BookingStatusChangedEvent event = BookingStatusChangedEvent.of(updatedBooking, previousStatus);
+        TransactionHooks.afterCommit(() -> eventPublisher.publishEvent(event));
+        bookingExpiryService.cancel(booking.getId());
 
         // Release seats
         Trip trip = booking.getTrip();
-        trip.setAvailableSeats(trip.getAvailableSeats() + booking.getSeatNumbers().size());
-        tripRepository.save(trip);
+        seatClaimService.release(booking.getId());
+        batch.adjustAvailableSeats(trip.getId(), booking.getSeatNumbers().size());
+        seatInventoryService.release(trip.getId(), booking.getSeatNumbers());
+        releaseHold(booking);
 
         // Notify clients
-        Map<Integer, Boolean> seatUpdates = new HashMap<>();
-        for (Integer seatNumber : booking.getSeatNumbers()) {
-            seatUpdates.put(seatNumber, true);
-        }
-        webSocketService.sendSeatUpdate(trip.getId(), seatUpdates);
+        batch.seatsChanged(trip.getId(), booking.getSeatNumbers(), true);
 
-        // Notify about booking expiration
-        webSocketService.sendBookingUpdate(booking.getId(), newBookingStatus, notificationMessage);
+        // Notify about booking status change
+        TransactionHooks.afterCommit(() ->
+                webSocketService.sendBookingUpdate(booking.getId(), newBookingStatus, notificationMessage));
         return bookingMapper.toBookingResponse(updatedBooking);
     }
-}
\ No newline at end of file
+
+    private void releaseHold(Booking booking) {
+        if (booking.getHoldToken() != null) {
+            Long tripId = booking.getTrip().getId();
+            List<Integer> seatNumbers = List.copyOf(booking.getSeatNumbers());
+            TransactionHooks.afterCommit(() -> seatHoldStore.release(tripId, seatNumbers, booking.getHoldToken()));
+        }
+    }
+}
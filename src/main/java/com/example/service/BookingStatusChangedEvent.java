@@ -0,0 +1,23 @@
+package com.example.service;
+
+import com.example.model.Booking;
+import com.example.model.BookingStatus;
+import com.example.model.Trip;
+
+import java.time.LocalDateTime;
+
+// Published after the change has committed; previousStatus is null for a new booking
+public record BookingStatusChangedEvent(Long bookingId, Long tripId, Long routeId, Long departureParkId,
+                                        LocalDateTime departureTime, Long userId,
+                                        BookingStatus previousStatus, BookingStatus status,
+                                        int seats, double amount, LocalDateTime changedAt) {
+
+    static BookingStatusChangedEvent of(Booking booking, BookingStatus previousStatus) {
+        Trip trip = booking.getTrip();
+        return new BookingStatusChangedEvent(booking.getId(), trip.getId(), trip.getRoute().getId(),
+                trip.getDeparturePark() != null ? trip.getDeparturePark().getId() : null,
+                trip.getDepartureTime(), booking.getUser().getId(),
+                previousStatus, booking.getStatus(), booking.getSeatNumbers().size(),
+                booking.getTotalAmount(), LocalDateTime.now());
+    }
+}
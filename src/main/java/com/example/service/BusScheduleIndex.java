@@ -0,0 +1,102 @@
+package com.example.service;
+
+import com.example.model.Trip;
+import com.example.model.TripStatus;
+import com.example.repository.BusSlotRow;
+import com.example.repository.TripRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time slots of active SCHEDULED and IN_PROGRESS trips per bus, so a
+ * conflict check is a range lookup instead of a scan of the bus history.
+ * Loaded at startup and kept current after commit by TripService. The
+ * database overlap query stays the final word at write time.
+ */
+@Service
+@RequiredArgsConstructor
+public class BusScheduleIndex {
+    private final TripRepository tripRepository;
+    private final Map<Long, BusSlotSet> slotsByBus = new ConcurrentHashMap<>();
+    private final Map<Long, Slot> slotsByTrip = new ConcurrentHashMap<>();
+
+    public record Slot(Long tripId, Long busId, LocalDateTime start, LocalDateTime end) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            List<BusSlotRow> rows = tripRepository.findBusSlots();
+            for (BusSlotRow row : rows) {
+                put(new Slot(row.tripId(), row.busId(), row.departureTime(), row.arrivalTime()));
+            }
+            System.out.println("Indexed " + rows.size() + " bus slots");
+        } catch (Exception e) {
+            System.err.println("Error loading bus schedule index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Trips already on the bus that overlap [start, end), ignoring the trip
+     * being moved (null for a new trip).
+     */
+    public List<Slot> findConflicts(Long busId, LocalDateTime start, LocalDateTime end, Long excludeTripId) {
+        BusSlotSet slots = slotsByBus.get(busId);
+        return slots != null ? slots.overlapping(start, end, excludeTripId) : List.of();
+    }
+
+    // Reflect a created, moved or re-statused trip once its transaction commits
+    public void upsert(Trip trip) {
+        Long tripId = trip.getId();
+        Slot slot = occupiesBus(trip)
+                ? new Slot(tripId, trip.getBus().getId(), trip.getDepartureTime(), trip.getArrivalTime())
+                : null;
+        TransactionHooks.afterCommit(() -> {
+            removeNow(tripId);
+            if (slot != null) {
+                put(slot);
+            }
+        });
+    }
+
+    public void remove(Long tripId) {
+        TransactionHooks.afterCommit(() -> removeNow(tripId));
+    }
+
+    @EventListener
+    public void onTripStatusChanged(TripStatusChangedEvent event) {
+        if (event.status() == TripStatus.COMPLETED || event.status() == TripStatus.CANCELLED) {
+            removeNow(event.tripId());
+        }
+    }
+
+    public int size() {
+        return slotsByTrip.size();
+    }
+
+    private void put(Slot slot) {
+        slotsByBus.computeIfAbsent(slot.busId(), id -> new BusSlotSet()).add(slot);
+        slotsByTrip.put(slot.tripId(), slot);
+    }
+
+    private void removeNow(Long tripId) {
+        Slot old = slotsByTrip.remove(tripId);
+        if (old != null) {
+            BusSlotSet slots = slotsByBus.get(old.busId());
+            if (slots != null) {
+                slots.remove(old);
+            }
+        }
+    }
+
+    private static boolean occupiesBus(Trip trip) {
+        return trip.isActive()
+                && (trip.getStatus() == TripStatus.SCHEDULED || trip.getStatus() == TripStatus.IN_PROGRESS);
+    }
+}
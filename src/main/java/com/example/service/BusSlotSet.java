@@ -0,0 +1,39 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/*
+ * One bus's slots ordered by start. Any slot overlapping [start, end) must
+ * begin after start - longest, so a lookup only walks that range.
+ */
+final class BusSlotSet {
+    private final TreeSet<BusScheduleIndex.Slot> byStart = new TreeSet<>(
+            Comparator.comparing(BusScheduleIndex.Slot::start).thenComparing(BusScheduleIndex.Slot::tripId));
+    private long longestSeconds;
+
+    synchronized void add(BusScheduleIndex.Slot slot) {
+        byStart.add(slot);
+        longestSeconds = Math.max(longestSeconds, Duration.between(slot.start(), slot.end()).getSeconds());
+    }
+
+    synchronized void remove(BusScheduleIndex.Slot slot) {
+        byStart.remove(slot);
+    }
+
+    synchronized List<BusScheduleIndex.Slot> overlapping(LocalDateTime start, LocalDateTime end, Long excludeTripId) {
+        BusScheduleIndex.Slot from = new BusScheduleIndex.Slot(Long.MIN_VALUE, null, start.minusSeconds(longestSeconds), null);
+        BusScheduleIndex.Slot to = new BusScheduleIndex.Slot(Long.MIN_VALUE, null, end, null);
+        List<BusScheduleIndex.Slot> overlapping = new ArrayList<>();
+        for (BusScheduleIndex.Slot slot : byStart.subSet(from, true, to, false)) {
+            if (slot.end().isAfter(start) && !slot.tripId().equals(excludeTripId)) {
+                overlapping.add(slot);
+            }
+        }
+        return overlapping;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.service;
+
+import java.util.*;
+
+/**
+ * Connection scan over one window of the timetable. Every trip is a single
+ * connection from its departure park to its arrival park; a passenger can
+ * change buses at a park once the minimum transfer time has passed.
+ * Connections are held as parallel arrays sorted by departure, so a query is
+ * one forward pass over the window.
+ */
+final class ConnectionScanner {
+    private final List<Connection> connections;
+    private final long[] departures;
+    private final long[] arrivals;
+    private final int[] fromStop;
+    private final int[] toStop;
+    private final int[] originCity;
+    private final int[] destinationCity;
+    private final double[] prices;
+    private final int[] seats;
+    private final Map<String, Integer> cityIds = new HashMap<>();
+    private final int stopCount;
+
+    record Connection(String origin, String destination, TimetableEntry entry) {
+    }
+
+    ConnectionScanner(List<Connection> unsorted) {
+        this.connections = new ArrayList<>(unsorted);
+        connections.sort(Comparator.comparingLong((Connection c) -> c.entry().departure())
+                .thenComparingLong(c -> c.entry().tripId()));
+        int n = connections.size();
+        departures = new long[n];
+        arrivals = new long[n];
+        fromStop = new int[n];
+        toStop = new int[n];
+        originCity = new int[n];
+        destinationCity = new int[n];
+        prices = new double[n];
+        seats = new int[n];
+
+        Map<Long, Integer> stopIds = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Connection connection = connections.get(i);
+            TimetableEntry entry = connection.entry();
+            departures[i] = entry.departure();
+            arrivals[i] = entry.arrival();
+            fromStop[i] = stopIds.computeIfAbsent(entry.departureParkId(), id -> stopIds.size());
+            toStop[i] = stopIds.computeIfAbsent(entry.arrivalParkId(), id -> stopIds.size());
+            originCity[i] = cityIds.computeIfAbsent(connection.origin(), city -> cityIds.size());
+            destinationCity[i] = cityIds.computeIfAbsent(connection.destination(), city -> cityIds.size());
+            prices[i] = entry.price();
+            seats[i] = entry.availableSeats();
+        }
+        this.stopCount = stopIds.size();
+    }
+
+    int size() {
+        return connections.size();
+    }
+
+    /**
+     * The itinerary that reaches the destination city first. The first leg
+     * leaves the origin city in [departAfter, boardBefore). Empty if none.
+     */
+    List<Connection> earliestArrival(String origin, String destination, long departAfter, long boardBefore,
+                                     int passengers, long minTransferSeconds) {
+        Integer from = cityIds.get(origin);
+        Integer to = cityIds.get(destination);
+        if (from == null || to == null || from.equals(to)) {
+            return List.of();
+        }
+        long[] arrivedAt = new long[stopCount];
+        Arrays.fill(arrivedAt, Long.MAX_VALUE);
+        int[] arrivedBy = new int[stopCount];
+        int[] parent = new int[departures.length];
+        long bestArrival = Long.MAX_VALUE;
+        int best = -1;
+
+        for (int c = firstDepartingAt(departAfter); c < departures.length; c++) {
+            if (departures[c] >= bestArrival) {
+                break; // nothing later can arrive sooner
+            }
+            if (seats[c] < passengers || originCity[c] == to) {
+                continue;
+            }
+            int stop = fromStop[c];
+            if (originCity[c] == from && departures[c] < boardBefore) {
+                parent[c] = -1;
+            } else if (arrivedAt[stop] != Long.MAX_VALUE && arrivedAt[stop] + minTransferSeconds <= departures[c]) {
+                parent[c] = arrivedBy[stop];
+            } else {
+                continue;
+            }
+            if (destinationCity[c] == to) {
+                if (arrivals[c] < bestArrival) {
+                    bestArrival = arrivals[c];
+                    best = c;
+                }
+            } else if (arrivals[c] < arrivedAt[toStop[c]]) {
+                arrivedAt[toStop[c]] = arrivals[c];
+                arrivedBy[toStop[c]] = c;
+            }
+        }
+        return itinerary(best, parent);
+    }
+
+    /**
+     * The lowest fare itinerary, earliest arrival among equal fares. Arrivals
+     * wait in a per-park queue until the scan reaches a departure they can
+     * transfer to, so each park only offers the cheapest fare that is
+     * actually reachable in time.
+     */
+    List<Connection> cheapest(String origin, String destination, long departAfter, long boardBefore,
+                              int passengers, long minTransferSeconds) {
+        Integer from = cityIds.get(origin);
+        Integer to = cityIds.get(destination);
+        if (from == null || to == null || from.equals(to)) {
+            return List.of();
+        }
+        List<PriorityQueue<Label>> pending = new ArrayList<>(stopCount);
+        for (int i = 0; i < stopCount; i++) {
+            pending.add(new PriorityQueue<>(Comparator.comparingLong(Label::readyAt)));
+        }
+        double[] reachableFare = new double[stopCount];
+        Arrays.fill(reachableFare, Double.POSITIVE_INFINITY);
+        int[] reachableBy = new int[stopCount];
+        int[] parent = new int[departures.length];
+        double bestFare = Double.POSITIVE_INFINITY;
+        long bestArrival = Long.MAX_VALUE;
+        int best = -1;
+
+        for (int c = firstDepartingAt(departAfter); c < departures.length; c++) {
+            if (seats[c] < passengers || originCity[c] == to) {
+                continue;
+            }
+            int stop = fromStop[c];
+            PriorityQueue<Label> waiting = pending.get(stop);
+            while (!waiting.isEmpty() && waiting.peek().readyAt() <= departures[c]) {
+                Label label = waiting.poll();
+                if (label.fare() < reachableFare[stop]) {
+                    reachableFare[stop] = label.fare();
+                    reachableBy[stop] = label.connection();
+                }
+            }
+
+            double fare;
+            if (originCity[c] == from && departures[c] < boardBefore) {
+                fare = prices[c];
+                parent[c] = -1;
+            } else if (reachableFare[stop] != Double.POSITIVE_INFINITY) {
+                fare = reachableFare[stop] + prices[c];
+                parent[c] = reachableBy[stop];
+            } else {
+                continue;
+            }
+            if (fare > bestFare) {
+                continue; // fares only grow along an itinerary
+            }
+            if (destinationCity[c] == to) {
+                if (fare < bestFare || arrivals[c] < bestArrival) {
+                    bestFare = fare;
+                    bestArrival = arrivals[c];
+                    best = c;
+                }
+            } else {
+                pending.get(toStop[c]).add(new Label(arrivals[c] + minTransferSeconds, fare, c));
+            }
+        }
+        return itinerary(best, parent);
+    }
+
+    private record Label(long readyAt, double fare, int connection) {
+    }
+
+    private List<Connection> itinerary(int last, int[] parent) {
+        if (last < 0) {
+            return List.of();
+        }
+        LinkedList<Connection> legs = new LinkedList<>();
+        for (int c = last; c >= 0; c = parent[c]) {
+            legs.addFirst(connections.get(c));
+        }
+        return legs;
+    }
+
+    private int firstDepartingAt(long time) {
+        int low = 0;
+        int high = departures.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departures[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
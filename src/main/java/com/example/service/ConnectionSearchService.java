@@ -0,0 +1,101 @@
+package com.example.service;
+
+import com.example.dto.responses.ItineraryLegResponse;
+import com.example.dto.responses.ItineraryResponse;
+import com.example.exception.InvalidInputException;
+import com.example.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Itineraries with transfers at bus parks, searched over the in-memory
+ * timetable. The first leg leaves on the travel date; later legs may run
+ * into the next day. Scanners are built per travel date and reused until
+ * the timetable changes, at most once a second.
+ */
+@Service
+public class ConnectionSearchService {
+    private static final long SCANNER_MAX_AGE_MILLIS = 1000;
+
+    private final TimetableIndex timetableIndex;
+    private final long minTransferSeconds;
+    private final Map<LocalDate, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public ConnectionSearchService(TimetableIndex timetableIndex,
+                                   @Value("${app.connections.min-transfer-minutes:15}") long minTransferMinutes) {
+        this.timetableIndex = timetableIndex;
+        this.minTransferSeconds = minTransferMinutes * 60;
+    }
+
+    public enum Optimize {
+        EARLIEST_ARRIVAL,
+        CHEAPEST
+    }
+
+    private record Snapshot(long version, long builtAt, ConnectionScanner scanner) {
+    }
+
+    public ItineraryResponse findConnection(String origin, String destination, LocalDate date,
+                                            LocalTime departAfter, int passengers, Optimize optimize) {
+        if (passengers < 1) {
+            throw new InvalidInputException("passengers must be at least 1");
+        }
+        long start = TimetableIndex.toEpochSeconds(date.atTime(departAfter != null ? departAfter : LocalTime.MIDNIGHT));
+        long endOfDay = TimetableIndex.toEpochSeconds(date.plusDays(1).atStartOfDay());
+        ConnectionScanner scanner = scannerFor(date);
+
+        List<ConnectionScanner.Connection> legs = optimize == Optimize.CHEAPEST
+                ? scanner.cheapest(origin, destination, start, endOfDay, passengers, minTransferSeconds)
+                : scanner.earliestArrival(origin, destination, start, endOfDay, passengers, minTransferSeconds);
+        if (legs.isEmpty()) {
+            throw new ResourceNotFoundException("No connection found from " + origin + " to " + destination);
+        }
+        return toResponse(legs);
+    }
+
+    private ConnectionScanner scannerFor(LocalDate date) {
+        long version = timetableIndex.getVersion();
+        long now = System.currentTimeMillis();
+        Snapshot snapshot = snapshots.get(date);
+        if (snapshot != null && (snapshot.version() == version || now - snapshot.builtAt() < SCANNER_MAX_AGE_MILLIS)) {
+            return snapshot.scanner();
+        }
+
+        List<ConnectionScanner.Connection> connections = new ArrayList<>();
+        for (LocalDate day : List.of(date, date.plusDays(1))) {
+            timetableIndex.departingOn(day).forEach((key, entries) -> {
+                for (TimetableEntry entry : entries) {
+                    connections.add(new ConnectionScanner.Connection(key.origin(), key.destination(), entry));
+                }
+            });
+        }
+        ConnectionScanner scanner = new ConnectionScanner(connections);
+        snapshots.keySet().removeIf(day -> day.isBefore(LocalDate.now()));
+        snapshots.put(date, new Snapshot(version, now, scanner));
+        return scanner;
+    }
+
+    private static ItineraryResponse toResponse(List<ConnectionScanner.Connection> legs) {
+        List<ItineraryLegResponse> legResponses = new ArrayList<>(legs.size());
+        double total = 0;
+        for (ConnectionScanner.Connection leg : legs) {
+            TimetableEntry entry = leg.entry();
+            total += entry.price();
+            legResponses.add(new ItineraryLegResponse(entry.tripId(), leg.origin(), leg.destination(),
+                    entry.departureParkId(), entry.arrivalParkId(),
+                    TimetableIndex.toLocalDateTime(entry.departure()),
+                    TimetableIndex.toLocalDateTime(entry.arrival()),
+                    entry.price()));
+        }
+        return new ItineraryResponse(legResponses.get(0).getDepartureTime(),
+                legResponses.get(legResponses.size() - 1).getArrivalTime(),
+                total, legs.size() - 1, legResponses);
+    }
+}
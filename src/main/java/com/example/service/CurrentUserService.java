@@ -3,7 +3,6 @@ package com.example.service;
 import com.example.exception.ResourceNotFoundException;
 import com.example.exception.UnauthorizedException;
 import com.example.model.User;
-import com.example.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -13,8 +12,14 @@ import org.springframework.stereotype.Service;
 @Service
 @AllArgsConstructor
 public class CurrentUserService {
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
+    /**
+     * The caller, served from the principal cache. The returned User is a
+     * detached copy with only id, email, full name, phone and role set;
+     * password, refreshToken and createdAt are null. Load the entity from
+     * UserRepository before reading those fields or saving the user.
+     */
     public User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()
@@ -23,8 +28,10 @@ public class CurrentUserService {
             throw new UnauthorizedException("Not Authenticated!");
         }
 
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User Not Found"));
+        PrincipalSnapshot principal = principalCache.get(authentication.getName());
+        if (principal == null) {
+            throw new ResourceNotFoundException("User Not Found");
+        }
+        return principal.toUser();
     }
 }
\ No newline at end of file
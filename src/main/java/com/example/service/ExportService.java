@@ -0,0 +1,285 @@
+package com.example.service;
+
+import com.example.exception.InvalidInputException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * Streams bookings, payments or trips for a date range as CSV or NDJSON.
+ * Rows are read through a forward-only cursor with a fixed fetch size and
+ * written straight to the output stream, so memory does not grow with the
+ * range. Each day is read in its own short read-only transaction, so a long
+ * export never holds one snapshot or connection for its whole duration.
+ */
+@Service
+public class ExportService {
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final int fetchSize;
+
+    public ExportService(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    public enum Dataset {
+        // Bookings by booking time
+        BOOKINGS("SELECT b.id, b.booking_time, b.status, b.user_id, b.trip_id, t.route_id, t.departure_park_id, "
+                + "t.departure_time, (SELECT COUNT(*) FROM booking_seats s WHERE s.booking_id = b.id) AS seats, "
+                + "b.price AS amount "
+                + "FROM booking b JOIN trip t ON t.id = b.trip_id "
+                + "WHERE b.booking_time >= ? AND b.booking_time < ? ORDER BY b.booking_time, b.id"),
+        // Payments by payment time
+        PAYMENTS("SELECT p.id, p.payment_time, p.status, p.payment_method, p.transaction_id, p.amount, "
+                + "p.booking_id, b.user_id, b.trip_id, t.route_id "
+                + "FROM payment p JOIN booking b ON b.id = p.booking_id JOIN trip t ON t.id = b.trip_id "
+                + "WHERE p.payment_time >= ? AND p.payment_time < ? ORDER BY p.payment_time, p.id"),
+        // Trips by departure time
+        TRIPS("SELECT t.id, t.departure_time, t.arrival_time, t.status, t.route_id, r.origin, r.destination, "
+                + "t.bus_id, t.departure_park_id, t.arrival_park_id, t.amount, t.available_seats, t.active "
+                + "FROM trip t JOIN route r ON r.id = t.route_id "
+                + "WHERE t.departure_time >= ? AND t.departure_time < ? ORDER BY t.departure_time, t.id");
+
+        private final String sql;
+
+        Dataset(String sql) {
+            this.sql = sql;
+        }
+
+        public static Dataset of(String name) {
+            for (Dataset dataset : values()) {
+                if (dataset.name().equalsIgnoreCase(name)) {
+                    return dataset;
+                }
+            }
+            throw new InvalidInputException("Unknown export '" + name + "', expected bookings, payments or trips");
+        }
+    }
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new InvalidInputException("Unknown format '" + name + "', expected csv or ndjson");
+        }
+    }
+
+    public void validateRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new InvalidInputException("'to' must not be before 'from'");
+        }
+        if (from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new InvalidInputException("Date range can span at most " + MAX_RANGE_DAYS + " days");
+        }
+    }
+
+    /**
+     * Write every row of the dataset dated from 'from' to 'to' inclusive.
+     * Output is flushed after each day; returns the number of rows written.
+     */
+    public long export(Dataset dataset, Format format, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        validateRange(from, to);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_BYTES);
+        RowWriter rows = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        long written = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Timestamp start = Timestamp.valueOf(day.atStartOfDay());
+            Timestamp end = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+            Long count = readOnlyTransaction.execute(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(dataset.sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // The driver only uses a cursor inside a transaction and with a fetch size
+                ps.setFetchSize(fetchSize);
+                ps.setTimestamp(1, start);
+                ps.setTimestamp(2, end);
+                return ps;
+            }, rs -> {
+                try {
+                    rows.begin(rs.getMetaData());
+                    long n = 0;
+                    while (rs.next()) {
+                        rows.write(rs);
+                        n++;
+                    }
+                    return n;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            written += count != null ? count : 0;
+            rows.flush();
+            writer.flush();
+        }
+        return written;
+    }
+
+    private interface RowWriter {
+        // Called at the start of every day's result set
+        void begin(ResultSetMetaData metaData) throws SQLException, IOException;
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        default void flush() throws IOException {
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private String[] columns;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin(ResultSetMetaData metaData) throws SQLException, IOException {
+            if (columns != null) {
+                return; // header only once
+            }
+            columns = labels(metaData);
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvField(columns[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvField(format(rs.getObject(i + 1))));
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private JsonGenerator generator;
+        private String[] columns;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin(ResultSetMetaData metaData) throws SQLException, IOException {
+            if (generator == null) {
+                generator = jsonFactory.createGenerator(writer);
+                generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                generator.setRootValueSeparator(null);
+                columns = labels(metaData);
+            }
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                Object value = rs.getObject(i + 1);
+                generator.writeFieldName(columns[i]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Boolean b) {
+                    generator.writeBoolean(b);
+                } else if (value instanceof Number) {
+                    generator.writeNumber(format(value));
+                } else {
+                    generator.writeString(format(value));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (generator != null) {
+                generator.flush();
+            }
+        }
+    }
+
+    private static String[] labels(ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+        return labels;
+    }
+
+    // Timestamps as ISO local date-times, amounts without exponents
+    static String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue()).toPlainString();
+        }
+        return value.toString();
+    }
+
+    // RFC 4180 quoting; null is an empty field
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.service;
+
+import java.time.LocalDateTime;
+
+// A refresh token as the stores keep it, independent of where that is
+public record IssuedRefreshToken(String token, Long userId, LocalDateTime expiryDate,
+                                 String issuedIp, String deviceInfo) {
+
+    public boolean isExpired() {
+        return expiryDate.isBefore(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.service;
+
+import com.example.model.RefreshToken;
+import com.example.repository.RefreshTokenRepository;
+import com.example.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh tokens in the refresh_token table. Rotation deletes the old row
+ * by token and only inserts the new one if that delete hit; expired rows
+ * are removed in bulk every hour.
+ */
+@Service
+@Transactional
+@ConditionalOnProperty(name = "app.refresh-tokens.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    public void save(IssuedRefreshToken token) {
+        RefreshToken entity = new RefreshToken();
+        entity.setToken(token.token());
+        entity.setUser(userRepository.getReferenceById(token.userId()));
+        entity.setExpiryDate(token.expiryDate());
+        entity.setIssuedIp(token.issuedIp());
+        entity.setDeviceInfo(token.deviceInfo());
+        refreshTokenRepository.save(entity);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public IssuedRefreshToken find(String token) {
+        RefreshToken entity = refreshTokenRepository.findByToken(token);
+        if (entity == null) {
+            return null;
+        }
+        return new IssuedRefreshToken(entity.getToken(), entity.getUser().getId(), entity.getExpiryDate(),
+                entity.getIssuedIp(), entity.getDeviceInfo());
+    }
+
+    @Override
+    public IssuedRefreshToken rotate(String oldToken, IssuedRefreshToken replacement) {
+        IssuedRefreshToken old = find(oldToken);
+        // The row lock makes this delete succeed for one caller only
+        if (old == null || refreshTokenRepository.deleteByTokenValue(oldToken) == 0 || old.isExpired()) {
+            return null;
+        }
+        save(replacement);
+        return old;
+    }
+
+    @Override
+    public void delete(String token) {
+        refreshTokenRepository.deleteByTokenValue(token);
+    }
+
+    @Scheduled(fixedRate = 3600000) // Every hour
+    public void purgeExpired() {
+        int purged = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            System.out.println("Purged " + purged + " expired refresh tokens");
+        }
+    }
+}
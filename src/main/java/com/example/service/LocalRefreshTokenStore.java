@@ -0,0 +1,55 @@
+package com.example.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Refresh tokens in memory, for tests and single-node development
+@Service
+@ConditionalOnProperty(name = "app.refresh-tokens.store", havingValue = "memory")
+public class LocalRefreshTokenStore implements RefreshTokenStore {
+    private final Map<String, IssuedRefreshToken> tokens = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(IssuedRefreshToken token) {
+        tokens.put(token.token(), token);
+    }
+
+    @Override
+    public IssuedRefreshToken find(String token) {
+        IssuedRefreshToken issued = tokens.get(token);
+        if (issued != null && issued.isExpired()) {
+            tokens.remove(token, issued);
+            return null;
+        }
+        return issued;
+    }
+
+    @Override
+    public IssuedRefreshToken rotate(String oldToken, IssuedRefreshToken replacement) {
+        // remove() succeeds for exactly one caller
+        IssuedRefreshToken old = tokens.remove(oldToken);
+        if (old == null || old.isExpired()) {
+            return null;
+        }
+        tokens.put(replacement.token(), replacement);
+        return old;
+    }
+
+    @Override
+    public void delete(String token) {
+        tokens.remove(token);
+    }
+
+    @Scheduled(fixedRate = 600000)
+    public void purgeExpired() {
+        tokens.values().removeIf(IssuedRefreshToken::isExpired);
+    }
+
+    int size() {
+        return tokens.size();
+    }
+}
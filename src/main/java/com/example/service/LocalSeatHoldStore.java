@@ -0,0 +1,81 @@
+package com.example.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-node seat hold store, also the in-process stand-in for Redis in tests.
+ */
+@Service
+@ConditionalOnProperty(name = "app.seat-holds.store", havingValue = "local", matchIfMissing = true)
+public class LocalSeatHoldStore implements SeatHoldStore {
+    private final Clock clock;
+    private final Map<Long, Map<Integer, Hold>> holdsByTrip = new ConcurrentHashMap<>();
+
+    public LocalSeatHoldStore() {
+        this(Clock.systemUTC());
+    }
+
+    LocalSeatHoldStore(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public List<Integer> hold(Long tripId, List<Integer> seatNumbers, String holder, Duration ttl) {
+        Map<Integer, Hold> holds = holdsByTrip.computeIfAbsent(tripId, id -> new HashMap<>());
+        long now = clock.millis();
+        synchronized (holds) {
+            List<Integer> taken = new ArrayList<>();
+            for (Integer seat : seatNumbers) {
+                Hold hold = holds.get(seat);
+                if (hold != null && hold.expiresAt > now && !hold.holder.equals(holder)) {
+                    taken.add(seat);
+                }
+            }
+            if (taken.isEmpty()) {
+                Hold hold = new Hold(holder, now + ttl.toMillis());
+                for (Integer seat : seatNumbers) {
+                    holds.put(seat, hold);
+                }
+            }
+            return taken;
+        }
+    }
+
+    @Override
+    public void release(Long tripId, List<Integer> seatNumbers, String holder) {
+        Map<Integer, Hold> holds = holdsByTrip.get(tripId);
+        if (holds == null) {
+            return;
+        }
+        synchronized (holds) {
+            for (Integer seat : seatNumbers) {
+                Hold hold = holds.get(seat);
+                if (hold != null && hold.holder.equals(holder)) {
+                    holds.remove(seat);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Set<Integer> heldSeats(Long tripId) {
+        Map<Integer, Hold> holds = holdsByTrip.get(tripId);
+        if (holds == null) {
+            return Set.of();
+        }
+        long now = clock.millis();
+        synchronized (holds) {
+            holds.values().removeIf(hold -> hold.expiresAt <= now);
+            return new HashSet<>(holds.keySet());
+        }
+    }
+
+    private record Hold(String holder, long expiresAt) {
+    }
+}
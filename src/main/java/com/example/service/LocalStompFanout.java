@@ -0,0 +1,41 @@
+package com.example.service;
+
+import com.example.dto.responses.SeatUpdateMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+// Single node: hand messages straight to the in-process broker
+@Service
+@ConditionalOnProperty(name = "app.websocket.broker", havingValue = "simple", matchIfMissing = true)
+public class LocalStompFanout implements StompFanout {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SeatDeltaLogService seatDeltaLogService;
+    private final Timer fanoutTimer;
+
+    public LocalStompFanout(SimpMessagingTemplate messagingTemplate,
+                            SeatDeltaLogService seatDeltaLogService,
+                            MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.seatDeltaLogService = seatDeltaLogService;
+        this.fanoutTimer = Timer.builder("smartbus.websocket.fanout.latency")
+                .description("Time from publishing a message to handing it to the local broker")
+                .tag("broker", "simple")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void send(String destination, Object payload) {
+        fanoutTimer.record(() -> messagingTemplate.convertAndSend(destination, payload));
+    }
+
+    @Override
+    public void sendSeatUpdate(Long tripId, Map<Integer, Boolean> seatUpdates) {
+        SeatUpdateMessage message = seatDeltaLogService.append(tripId, seatUpdates);
+        send("/topic/trips/" + tripId + "/seats", message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+// Single node: the local listeners are all the listeners
+@Service
+@ConditionalOnProperty(name = "app.trip-events.relay", havingValue = "local", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LocalTripEventRelay implements TripEventRelay {
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(TripStatusChangedEvent event) {
+        eventPublisher.publishEvent(event);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-node waiting room store, also the in-process stand-in for Redis in tests.
+ */
+@Service
+@ConditionalOnProperty(name = "app.waiting-room.store", havingValue = "local", matchIfMissing = true)
+public class LocalWaitingRoomStore implements WaitingRoomStore {
+    private final Clock clock;
+    private final Map<Long, Room> rooms = new ConcurrentHashMap<>();
+
+    public LocalWaitingRoomStore() {
+        this(Clock.systemUTC());
+    }
+
+    LocalWaitingRoomStore(Clock clock) {
+        this.clock = clock;
+    }
+
+    private static class Room {
+        private int admitPerSecond;
+        private long nextSequence;
+        private long admittedSequence;
+        private long lastAdmitSecond;
+        private final Deque<String> queue = new ArrayDeque<>();
+        private final Map<Long, String> ticketsByUser = new HashMap<>();
+        private final Map<String, Ticket> ticketsById = new HashMap<>();
+
+        Room(int admitPerSecond) {
+            this.admitPerSecond = admitPerSecond;
+        }
+    }
+
+    @Override
+    public void open(Long tripId, int admitPerSecond) {
+        rooms.compute(tripId, (id, room) -> {
+            if (room == null) {
+                return new Room(admitPerSecond);
+            }
+            synchronized (room) {
+                room.admitPerSecond = admitPerSecond;
+            }
+            return room;
+        });
+    }
+
+    @Override
+    public void close(Long tripId) {
+        rooms.remove(tripId);
+    }
+
+    @Override
+    public boolean isOpen(Long tripId) {
+        return rooms.containsKey(tripId);
+    }
+
+    @Override
+    public Set<Long> openTrips() {
+        return Set.copyOf(rooms.keySet());
+    }
+
+    @Override
+    public Ticket join(Long tripId, Long userId) {
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            return null;
+        }
+        synchronized (room) {
+            String existingId = room.ticketsByUser.get(userId);
+            Ticket existing = existingId != null ? room.ticketsById.get(existingId) : null;
+            if (existing != null && (existing.admissionExpiresAt() == null
+                    || existing.admissionExpiresAt() > clock.millis())) {
+                return existing;
+            }
+            if (existing != null) {
+                room.ticketsById.remove(existing.id());
+            }
+            Ticket ticket = new Ticket(UUID.randomUUID().toString(), userId, ++room.nextSequence, null);
+            room.ticketsById.put(ticket.id(), ticket);
+            room.ticketsByUser.put(userId, ticket.id());
+            room.queue.add(ticket.id());
+            return ticket;
+        }
+    }
+
+    @Override
+    public Ticket find(Long tripId, String ticketId) {
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            return null;
+        }
+        synchronized (room) {
+            return room.ticketsById.get(ticketId);
+        }
+    }
+
+    @Override
+    public long admittedSequence(Long tripId) {
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            return 0;
+        }
+        synchronized (room) {
+            return room.admittedSequence;
+        }
+    }
+
+    @Override
+    public long depth(Long tripId) {
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            return 0;
+        }
+        synchronized (room) {
+            return room.queue.size();
+        }
+    }
+
+    @Override
+    public List<Ticket> admit(Long tripId, long admissionMillis) {
+        Room room = rooms.get(tripId);
+        if (room == null) {
+            return List.of();
+        }
+        long now = clock.millis();
+        synchronized (room) {
+            long second = now / 1000;
+            if (room.lastAdmitSecond >= second) {
+                return List.of();
+            }
+            room.lastAdmitSecond = second;
+            List<Ticket> admitted = new ArrayList<>();
+            while (admitted.size() < room.admitPerSecond && !room.queue.isEmpty()) {
+                Ticket queued = room.ticketsById.get(room.queue.poll());
+                if (queued == null) {
+                    continue;
+                }
+                Ticket ticket = new Ticket(queued.id(), queued.userId(), queued.sequence(), now + admissionMillis);
+                room.ticketsById.put(ticket.id(), ticket);
+                room.admittedSequence = ticket.sequence();
+                admitted.add(ticket);
+            }
+            // Forget admissions that ran out, unless the user already queued again
+            room.ticketsById.values().removeIf(ticket -> ticket.admissionExpiresAt() != null
+                    && ticket.admissionExpiresAt() <= now);
+            room.ticketsByUser.values().removeIf(id -> !room.ticketsById.containsKey(id));
+            return admitted;
+        }
+    }
+}
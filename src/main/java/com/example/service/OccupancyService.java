@@ -0,0 +1,168 @@
+package com.example.service;
+
+import com.example.dto.responses.OccupancyStatsResponse;
+import com.example.model.Route;
+import com.example.model.RouteOccupancyStats;
+import com.example.repository.RouteOccupancyStatsRepository;
+import com.example.repository.RouteRepository;
+import com.example.repository.TripOccupancySnapshotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Occupancy time series per trip. Every minute each trip that has reached
+ * 7 days, 1 day, 1 hour or 0 minutes before departure gets a snapshot of
+ * its confirmed seats. A nightly job turns the snapshots of recently
+ * departed trips into load factor percentiles per route, bus type and
+ * offset, which the report reads as stored.
+ */
+@Service
+public class OccupancyService {
+    private static final int CATCH_UP_MINUTES = 30; // snapshots later than this are skipped
+
+    private final TripOccupancySnapshotRepository snapshotRepository;
+    private final RouteOccupancyStatsRepository statsRepository;
+    private final RouteRepository routeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int reportDays;
+    // Mean load factor at departure per route, from the last aggregation
+    private volatile Map<Long, Double> departureLoadByRoute = Map.of();
+
+    public OccupancyService(TripOccupancySnapshotRepository snapshotRepository,
+                            RouteOccupancyStatsRepository statsRepository,
+                            RouteRepository routeRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${app.occupancy.report-days:90}") int reportDays) {
+        this.snapshotRepository = snapshotRepository;
+        this.statsRepository = statsRepository;
+        this.routeRepository = routeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.reportDays = reportDays;
+    }
+
+    public enum Offset {
+        WEEK_BEFORE(7 * 24 * 60, "T-7d"),
+        DAY_BEFORE(24 * 60, "T-1d"),
+        HOUR_BEFORE(60, "T-1h"),
+        DEPARTURE(0, "T-0");
+
+        private final int minutes;
+        private final String label;
+
+        Offset(int minutes, String label) {
+            this.minutes = minutes;
+            this.label = label;
+        }
+
+        static String labelOf(int minutes) {
+            for (Offset offset : values()) {
+                if (offset.minutes == minutes) {
+                    return offset.label;
+                }
+            }
+            return "T-" + minutes + "m";
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void recordSnapshots() {
+        try {
+            record(LocalDateTime.now());
+        } catch (Exception e) {
+            System.err.println("Error recording occupancy snapshots: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Snapshot every trip whose offset instant fell in the last few minutes.
+     * Reruns are harmless, a trip keeps its first snapshot per offset.
+     */
+    public int record(LocalDateTime now) {
+        Integer recorded = transactionTemplate.execute(status -> {
+            int total = 0;
+            for (Offset offset : Offset.values()) {
+                LocalDateTime until = now.plusMinutes(offset.minutes);
+                total += snapshotRepository.recordSnapshots(offset.minutes, now,
+                        until.minusMinutes(CATCH_UP_MINUTES), until);
+            }
+            return total;
+        });
+        return recorded != null ? recorded : 0;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            if (statsRepository.count() == 0) {
+                aggregate();
+            } else {
+                loadDepartureLoads();
+            }
+        } catch (Exception e) {
+            System.err.println("Error loading occupancy statistics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute the percentiles from the snapshots of trips that departed in
+     * the last reportDays days. Every instance runs the job; a transaction
+     * scoped advisory lock makes them replace the rows one at a time.
+     * Returns the rows written.
+     */
+    @Scheduled(cron = "0 30 2 * * *") // Nightly
+    public int aggregate() {
+        LocalDate windowEnd = LocalDate.now();
+        LocalDate windowStart = windowEnd.minusDays(reportDays);
+        Integer written = transactionTemplate.execute(status -> {
+            statsRepository.lockForAggregation();
+            statsRepository.deleteAllStats();
+            return statsRepository.insertPercentiles(windowStart, windowEnd, LocalDateTime.now());
+        });
+        loadDepartureLoads();
+        System.out.println("Aggregated occupancy into " + written + " route statistics");
+        return written != null ? written : 0;
+    }
+
+    public List<OccupancyStatsResponse> getOccupancyReport(Long routeId) {
+        List<RouteOccupancyStats> stats = routeId != null
+                ? statsRepository.findByRouteIdOrderByBusTypeAscOffsetMinutesDesc(routeId)
+                : statsRepository.findAllByOrderByRouteIdAscBusTypeAscOffsetMinutesDesc();
+        Map<Long, String> names = new HashMap<>();
+        for (Route route : routeRepository.findAllById(stats.stream().map(RouteOccupancyStats::getRouteId).distinct().toList())) {
+            names.put(route.getId(), route.getOrigin() + " -> " + route.getDestination());
+        }
+        return stats.stream()
+                .map(row -> new OccupancyStatsResponse(row.getRouteId(), names.get(row.getRouteId()), row.getBusType(),
+                        Offset.labelOf(row.getOffsetMinutes()), row.getTrips(), row.getMeanLoad(),
+                        row.getP50Load(), row.getP90Load(), row.getP99Load(),
+                        row.getWindowStart(), row.getWindowEnd(), row.getComputedAt()))
+                .toList();
+    }
+
+    // Mean load factor at departure for the route, or null before it has departed trips in the report
+    public Double getDepartureLoad(Long routeId) {
+        return departureLoadByRoute.get(routeId);
+    }
+
+    private void loadDepartureLoads() {
+        Map<Long, double[]> sums = new HashMap<>(); // {trips * mean, trips} across bus types
+        for (RouteOccupancyStats row : statsRepository.findAll()) {
+            if (row.getOffsetMinutes() == Offset.DEPARTURE.minutes) {
+                double[] sum = sums.computeIfAbsent(row.getRouteId(), id -> new double[2]);
+                sum[0] += row.getTrips() * row.getMeanLoad();
+                sum[1] += row.getTrips();
+            }
+        }
+        Map<Long, Double> loads = new HashMap<>();
+        sums.forEach((routeId, sum) -> loads.put(routeId, sum[0] / sum[1]));
+        departureLoadByRoute = loads;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.service;
+
+import com.example.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt work on a small dedicated pool so login spikes cannot take every
+ * request thread. The queue is bounded and a full pool fails fast with
+ * 503. The work factor is measured at startup against a target latency
+ * unless one is configured; older hashes are upgraded on login. This is
+ * the only password encoder in the application.
+ */
+@Service
+public class PasswordHashingService {
+    private static final int MIN_STRENGTH = 10; // BCrypt default
+    private static final int MAX_STRENGTH = 14;
+
+    private final ThreadPoolExecutor executor;
+    private final BCryptPasswordEncoder encoder;
+    private final long timeoutMillis;
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(MeterRegistry meterRegistry,
+                                  @Value("${app.auth.hashing.threads:0}") int threads,
+                                  @Value("${app.auth.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.auth.hashing.timeout-ms:5000}") long timeoutMillis,
+                                  @Value("${app.auth.bcrypt.strength:0}") int strength,
+                                  @Value("${app.auth.bcrypt.target-ms:250}") long targetMillis) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+        int workFactor = strength > 0 ? strength : calibrate(targetMillis);
+        this.encoder = new BCryptPasswordEncoder(workFactor);
+        System.out.println("BCrypt work factor " + workFactor + " on " + poolSize + " hashing threads");
+
+        this.hashTimer = Timer.builder("smartbus.auth.password")
+                .description("Time to hash or check a password, queueing included")
+                .tag("operation", "hash")
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("smartbus.auth.password")
+                .description("Time to hash or check a password, queueing included")
+                .tag("operation", "verify")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("smartbus.auth.password.rejected")
+                .description("Password operations refused because the hashing pool was full")
+                .register(meterRegistry);
+        Gauge.builder("smartbus.auth.password.queue", executor, e -> e.getQueue().size())
+                .description("Password operations waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("smartbus.auth.password.strength", () -> workFactor)
+                .description("BCrypt work factor used for new hashes")
+                .register(meterRegistry);
+    }
+
+    public String hash(String rawPassword) {
+        return run(hashTimer, () -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(verifyTimer, () -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    // True if the hash was made with a lower work factor than the current one
+    public boolean needsUpgrade(String encodedPassword) {
+        return encoder.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Timer timer, Supplier<T> work) {
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(work::get);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many sign-in requests, please try again shortly");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("Too many sign-in requests, please try again shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while checking the password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Highest work factor whose hash still fits the target on this machine
+    private static int calibrate(long targetMillis) {
+        int strength = MIN_STRENGTH;
+        new BCryptPasswordEncoder(MIN_STRENGTH).encode("warm-up");
+        while (strength < MAX_STRENGTH) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(strength + 1).encode("calibration");
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (millis > targetMillis) {
+                break;
+            }
+            strength++;
+        }
+        return strength;
+    }
+}
@@ -9,6 +9,7 @@ import com.example.model.*;
 import com.example.repository.BookingRepository;
 import com.example.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -23,6 +24,9 @@ public class PaymentService {
     private final CurrentUserService currentUserService;
     private final WebSocketService webSocketService;
     private final TicketService ticketService;
+    private final BookingExpiryService bookingExpiryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TripBookingDispatcher tripBookingDispatcher;
 
     public PaymentResponse processPayment(PaymentRequest paymentRequest) {
         User currentUser = currentUserService.getCurrentUser();
@@ -54,6 +58,21 @@ public class PaymentService {
             throw new BadRequestException("Payment failed. Please try again.");
         }
 
+        // Confirm on the trip's writer, so it cannot interleave with a cancel or expiry of the same booking
+        return tripBookingDispatcher.execute(booking.getTrip().getId(),
+                batch -> confirmBooking(booking.getId(), paymentRequest));
+    }
+
+    // Runs on the trip's writer thread inside the batch transaction
+    private PaymentResponse confirmBooking(Long bookingId, PaymentRequest paymentRequest) {
+        // Conditional, so an expiry sweep outside the writer cannot be overwritten either
+        if (bookingRepository.confirmPending(bookingId, LocalDateTime.now()) == 0) {
+            throw new BadRequestException("This booking is no longer pending or has expired");
+        }
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found"));
+        booking.setStatus(BookingStatus.CONFIRMED); // in case the batch had it loaded already
+
         Payment payment = new Payment();
         payment.setBooking(booking);
         payment.setPaymentMethod(paymentRequest.getPaymentMethod());
@@ -65,19 +84,19 @@ public class PaymentService {
         // Save payment
         Payment savedPayment = paymentRepository.save(payment);
 
-        // Update booking status
-        booking.setStatus(BookingStatus.CONFIRMED);
-        bookingRepository.save(booking);
+        bookingExpiryService.cancel(booking.getId());
+        BookingStatusChangedEvent event = BookingStatusChangedEvent.of(booking, BookingStatus.PENDING);
+        TransactionHooks.afterCommit(() -> eventPublisher.publishEvent(event));
 
         // Generate ticket
         Ticket ticket = ticketService.generateTicket(booking);
 
         // Notify about payment confirmation
-        webSocketService.sendBookingUpdate(
+        TransactionHooks.afterCommit(() -> webSocketService.sendBookingUpdate(
                 booking.getId(),
                 BookingStatus.CONFIRMED,
                 "Payment successful. Your ticket is ready."
-        );
+        ));
 
         // Create response
         PaymentResponse response = new PaymentResponse();
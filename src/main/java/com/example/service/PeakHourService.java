@@ -0,0 +1,137 @@
+package com.example.service;
+
+import com.example.dto.responses.PeakHourDTO;
+import com.example.exception.InvalidInputException;
+import com.example.repository.BookingHourBucketRepository;
+import com.example.repository.HourTotal;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Booking demand by departure hour. New bookings are counted in memory per
+ * (departure date, hour, route, departure park) and added to the
+ * booking_hour_bucket table once a minute, so the peak-hour report reads a
+ * few buckets per day instead of the bookings table. Counts are exact on a
+ * single instance; a rebuild on one of several instances can count twice
+ * what the others had not flushed yet, at most a minute of bookings.
+ */
+@Service
+@RequiredArgsConstructor
+public class PeakHourService {
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private final BookingHourBucketRepository bucketRepository;
+    private final TransactionTemplate transactionTemplate;
+    // Counts not yet written, {bookings, seats} per bucket and minute the bookings were made
+    private final Map<PendingKey, long[]> pending = new ConcurrentHashMap<>();
+
+    record BucketKey(LocalDate date, int hour, Long routeId, Long departureParkId) {
+    }
+
+    private record PendingKey(BucketKey bucket, LocalDateTime bookedMinute) {
+    }
+
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        if (event.previousStatus() != null || event.departureTime() == null) {
+            return; // only new bookings count as demand
+        }
+        add(new PendingKey(bucketOf(event), event.changedAt().truncatedTo(ChronoUnit.MINUTES)), 1, event.seats());
+    }
+
+    static BucketKey bucketOf(BookingStatusChangedEvent event) {
+        return new BucketKey(event.departureTime().toLocalDate(), event.departureTime().getHour(),
+                event.routeId(), event.departureParkId() != null ? event.departureParkId() : 0L);
+    }
+
+    /**
+     * Bookings per hour of the day for departures in the date range, all 24
+     * hours, optionally for one route and/or departure park.
+     */
+    public List<PeakHourDTO> getPeakHours(LocalDate from, LocalDate to, Long routeId, Long departureParkId) {
+        if (to.isBefore(from)) {
+            throw new InvalidInputException("'to' must not be before 'from'");
+        }
+        if (from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new InvalidInputException("Date range can span at most " + MAX_RANGE_DAYS + " days");
+        }
+        long[] counts = new long[24];
+        for (HourTotal total : bucketRepository.sumByHour(from, to, routeId, departureParkId)) {
+            counts[total.hour()] = total.bookings();
+        }
+        List<PeakHourDTO> hours = new ArrayList<>(24);
+        for (int hour = 0; hour < 24; hour++) {
+            hours.add(new PeakHourDTO(hour, counts[hour]));
+        }
+        return hours;
+    }
+
+    /**
+     * Recompute the buckets for a date range from the bookings made before
+     * the current minute, e.g. for bookings made before the rollup existed.
+     * Pending counts for those bookings are dropped, later ones are still
+     * added by the next flush. Returns the buckets written.
+     */
+    public synchronized int rebuild(LocalDate from, LocalDate to) {
+        if (to.isBefore(from) || from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new InvalidInputException("Date range must be ordered and span at most " + MAX_RANGE_DAYS + " days");
+        }
+        LocalDateTime cutoff = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        Integer written = transactionTemplate.execute(status -> {
+            bucketRepository.deleteByDateRange(from, to);
+            return bucketRepository.insertFromBookings(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), cutoff);
+        });
+        pending.keySet().removeIf(key -> key.bookedMinute().isBefore(cutoff)
+                && !key.bucket().date().isBefore(from) && !key.bucket().date().isAfter(to));
+        return written != null ? written : 0;
+    }
+
+    // Synchronized with rebuild so counts it has just read are not flushed on top
+    @Scheduled(fixedDelay = 60000)
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<PendingKey, long[]> batch = new HashMap<>();
+        for (PendingKey key : pending.keySet()) {
+            long[] counts = pending.remove(key);
+            if (counts != null) {
+                batch.put(key, counts);
+            }
+        }
+        Map<BucketKey, long[]> buckets = new HashMap<>();
+        batch.forEach((key, counts) -> buckets.merge(key.bucket(), counts.clone(),
+                (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> buckets.forEach((key, counts) ->
+                    bucketRepository.addToBucket(key.date(), key.hour(), key.routeId(), key.departureParkId(),
+                            counts[0], counts[1])));
+        } catch (Exception e) {
+            // Keep the counts for the next run
+            System.err.println("Error writing booking hour buckets: " + e.getMessage());
+            batch.forEach((key, counts) -> add(key, counts[0], counts[1]));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void add(PendingKey key, long bookings, long seats) {
+        pending.merge(key, new long[]{bookings, seats}, (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.service;
+
+import com.example.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Authenticated users by email (the JWT subject), so the filter and
+ * CurrentUserService resolve the caller without a users query. Entries
+ * expire after a short TTL; UserService drops them when a user changes.
+ */
+@Service
+public class PrincipalCache {
+    private final UserRepository userRepository;
+    private final Cache<String, PrincipalSnapshot> principals;
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${app.auth.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${app.auth.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    // Null if there is no such user; misses are not cached
+    public PrincipalSnapshot get(String email) {
+        return principals.get(email, key -> userRepository.findByEmail(key)
+                .map(PrincipalSnapshot::of)
+                .orElse(null));
+    }
+
+    // Drop now and again after commit, so a read during the transaction cannot cache the old row
+    public void invalidate(String email) {
+        principals.invalidate(email);
+        TransactionHooks.afterCommit(() -> principals.invalidate(email));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.service;
+
+import com.example.model.Role;
+import com.example.model.User;
+
+/**
+ * What a request needs to know about its caller, copied out of the users
+ * row. Holds nothing about the password, so a password change only needs
+ * the cache entry dropped, which UserService does.
+ */
+public record PrincipalSnapshot(Long id, String email, String fullName, String phone, Role role) {
+
+    static PrincipalSnapshot of(User user) {
+        return new PrincipalSnapshot(user.getId(), user.getEmail(), user.getFullName(), user.getPhone(),
+                user.getRole());
+    }
+
+    // Detached user for ownership checks and associations; never carries the password hash
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setFullName(fullName);
+        user.setPhone(phone);
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.service;
+
+import com.example.dto.requests.RecurringTripRequest;
+import com.example.dto.responses.OccurrenceFailure;
+import com.example.dto.responses.RecurringTripResponse;
+import com.example.exception.InvalidInputException;
+import com.example.exception.ResourceNotFoundException;
+import com.example.exception.UnauthorizedException;
+import com.example.model.*;
+import com.example.repository.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Expands a recurring schedule ("bus B on route R daily at 06:00 for 90
+ * days") into trips. Entities are loaded once, the whole batch is checked
+ * against the bus's existing trips with one range query, and the trips that
+ * fit are written with JDBC batch inserts. Occurrences that do not fit are
+ * skipped and reported.
+ */
+@Service
+@Transactional
+public class RecurringTripService {
+    private static final int MAX_OCCURRENCES = 5000;
+    private static final String INSERT_TRIP = "INSERT INTO trip (bus_id, route_id, departure_park_id, arrival_park_id, "
+            + "departure_time, arrival_time, amount, status, available_seats, active, created_at, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final TripRepository tripRepository;
+    private final BusRepository busRepository;
+    private final RouteRepository routeRepository;
+    private final BusParkRepository busParkRepository;
+    private final CurrentUserService currentUserService;
+    private final TimetableIndex timetableIndex;
+    private final BusScheduleIndex busScheduleIndex;
+    private final TripStatusScheduler tripStatusScheduler;
+    private final RouteStatsService routeStatsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int insertBatchSize;
+
+    public RecurringTripService(TripRepository tripRepository,
+                                BusRepository busRepository,
+                                RouteRepository routeRepository,
+                                BusParkRepository busParkRepository,
+                                CurrentUserService currentUserService,
+                                TimetableIndex timetableIndex,
+                                BusScheduleIndex busScheduleIndex,
+                                TripStatusScheduler tripStatusScheduler,
+                                RouteStatsService routeStatsService,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${app.trips.insert-batch-size:500}") int insertBatchSize) {
+        this.tripRepository = tripRepository;
+        this.busRepository = busRepository;
+        this.routeRepository = routeRepository;
+        this.busParkRepository = busParkRepository;
+        this.currentUserService = currentUserService;
+        this.timetableIndex = timetableIndex;
+        this.busScheduleIndex = busScheduleIndex;
+        this.tripStatusScheduler = tripStatusScheduler;
+        this.routeStatsService = routeStatsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertBatchSize = insertBatchSize;
+    }
+
+    public RecurringTripResponse createRecurringTrips(RecurringTripRequest request) {
+        User currentUser = currentUserService.getCurrentUser();
+        Bus bus = busRepository.findById(request.getBusId())
+                .orElseThrow(() -> new ResourceNotFoundException("Bus not found"));
+        if (currentUser.getRole() == Role.OPERATOR && !bus.getOperator().getId().equals(currentUser.getId())) {
+            throw new UnauthorizedException("You can only schedule trips for your own buses");
+        }
+        Route route = routeRepository.findById(request.getRouteId())
+                .orElseThrow(() -> new ResourceNotFoundException("Route not found"));
+        BusPark departurePark = busParkRepository.findById(request.getDepartureParkId())
+                .orElseThrow(() -> new ResourceNotFoundException("Departure park not found"));
+        BusPark arrivalPark = busParkRepository.findById(request.getArrivalParkId())
+                .orElseThrow(() -> new ResourceNotFoundException("Arrival park not found"));
+
+        int durationMinutes = request.getDurationMinutes() != null
+                ? request.getDurationMinutes() : route.getEstimatedDurationMinutes();
+        if (durationMinutes < 1) {
+            throw new InvalidInputException("durationMinutes is required when the route has no estimated duration");
+        }
+        List<LocalDateTime> departures = expand(request);
+        List<OccurrenceFailure> failures = new ArrayList<>();
+        if (departures.isEmpty()) {
+            return new RecurringTripResponse(0, 0, List.of(), failures);
+        }
+
+        // Everything already on the bus across the whole span, in one query
+        LocalDateTime spanStart = departures.get(0);
+        LocalDateTime spanEnd = departures.get(departures.size() - 1).plusMinutes(durationMinutes);
+        BusSlotSet busy = new BusSlotSet();
+        for (BusSlotRow row : tripRepository.findBusSlotsBetween(bus.getId(), spanStart, spanEnd)) {
+            busy.add(new BusScheduleIndex.Slot(row.tripId(), row.busId(), row.departureTime(), row.arrivalTime()));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime previousArrival = null;
+        List<Trip> trips = new ArrayList<>();
+        for (LocalDateTime departure : departures) {
+            LocalDateTime arrival = departure.plusMinutes(durationMinutes);
+            if (!departure.isAfter(now)) {
+                failures.add(new OccurrenceFailure(departure, arrival, "IN_PAST", null));
+                continue;
+            }
+            List<BusScheduleIndex.Slot> clashes = busy.overlapping(departure, arrival, null);
+            if (!clashes.isEmpty()) {
+                failures.add(new OccurrenceFailure(departure, arrival, "OVERLAPS_TRIP", clashes.get(0).tripId()));
+                continue;
+            }
+            // Departures are sorted, so only the last accepted occurrence can still be running
+            if (previousArrival != null && departure.isBefore(previousArrival)) {
+                failures.add(new OccurrenceFailure(departure, arrival, "OVERLAPS_SCHEDULE", null));
+                continue;
+            }
+            trips.add(newTrip(bus, route, departurePark, arrivalPark, departure, arrival, now));
+            previousArrival = arrival;
+        }
+
+        insert(trips);
+        for (Trip trip : trips) {
+            timetableIndex.upsert(trip);
+            busScheduleIndex.upsert(trip);
+            tripStatusScheduler.track(trip);
+        }
+        routeStatsService.tripsAdded(route.getId(), trips.stream().map(Trip::getId).toList(), bus.getTotalSeats());
+        System.out.println("Created " + trips.size() + " recurring trips for bus " + bus.getId()
+                + ", skipped " + failures.size());
+        return new RecurringTripResponse(departures.size(), trips.size(),
+                trips.stream().map(Trip::getId).toList(), failures);
+    }
+
+    // Every departure in the date range on the requested weekdays, in order
+    private static List<LocalDateTime> expand(RecurringTripRequest request) {
+        LocalDate start = request.getStartDate();
+        LocalDate end = request.getEndDate();
+        if (end.isBefore(start)) {
+            throw new InvalidInputException("End date must not be before start date");
+        }
+        List<LocalTime> times = request.getDepartureTimes().stream().distinct().sorted().toList();
+        Set<DayOfWeek> days = request.getDaysOfWeek();
+
+        List<LocalDateTime> departures = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (days != null && !days.isEmpty() && !days.contains(date.getDayOfWeek())) {
+                continue;
+            }
+            for (LocalTime time : times) {
+                departures.add(date.atTime(time));
+                if (departures.size() > MAX_OCCURRENCES) {
+                    throw new InvalidInputException("A schedule can create at most " + MAX_OCCURRENCES + " trips");
+                }
+            }
+        }
+        return departures;
+    }
+
+    private static Trip newTrip(Bus bus, Route route, BusPark departurePark, BusPark arrivalPark,
+                                LocalDateTime departure, LocalDateTime arrival, LocalDateTime now) {
+        Trip trip = new Trip();
+        trip.setBus(bus);
+        trip.setRoute(route);
+        trip.setDeparturePark(departurePark);
+        trip.setArrivalPark(arrivalPark);
+        trip.setDepartureTime(departure);
+        trip.setArrivalTime(arrival);
+        trip.setAmount(route.getPrice());
+        trip.setStatus(TripStatus.SCHEDULED);
+        trip.setAvailableSeats(bus.getTotalSeats());
+        trip.setActive(true);
+        trip.setCreatedAt(now);
+        return trip;
+    }
+
+    // Batched inserts on the transaction's connection; generated ids are copied back
+    private void insert(List<Trip> trips) {
+        for (int from = 0; from < trips.size(); from += insertBatchSize) {
+            List<Trip> chunk = trips.subList(from, Math.min(from + insertBatchSize, trips.size()));
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_TRIP, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Trip trip = chunk.get(i);
+                            ps.setLong(1, trip.getBus().getId());
+                            ps.setLong(2, trip.getRoute().getId());
+                            ps.setLong(3, trip.getDeparturePark().getId());
+                            ps.setLong(4, trip.getArrivalPark().getId());
+                            ps.setTimestamp(5, Timestamp.valueOf(trip.getDepartureTime()));
+                            ps.setTimestamp(6, Timestamp.valueOf(trip.getArrivalTime()));
+                            ps.setDouble(7, trip.getAmount());
+                            ps.setString(8, trip.getStatus().name());
+                            ps.setInt(9, trip.getAvailableSeats());
+                            ps.setBoolean(10, trip.isActive());
+                            ps.setTimestamp(11, Timestamp.valueOf(trip.getCreatedAt()));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keys);
+            List<Map<String, Object>> keyList = keys.getKeyList();
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(((Number) keyList.get(i).get("id")).longValue());
+            }
+        }
+    }
+}
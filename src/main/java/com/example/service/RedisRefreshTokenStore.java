@@ -0,0 +1,85 @@
+package com.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Refresh tokens as JSON strings under smartbus:refresh:{token}, each
+ * expiring with its token. Rotation is one script so a token can only be
+ * swapped once.
+ */
+@Service
+@ConditionalOnProperty(name = "app.refresh-tokens.store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+    private static final String KEY_PREFIX = "smartbus:refresh:";
+
+    // KEYS[1] old token, KEYS[2] new token, ARGV[1] new value, ARGV[2] new ttl millis
+    private static final RedisScript<String> ROTATE = new DefaultRedisScript<>("""
+            local old = redis.call('GET', KEYS[1])
+            if not old then
+                return false
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[2])
+            return old
+            """, String.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void save(IssuedRefreshToken token) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + token.token(), toJson(token), ttl(token));
+    }
+
+    @Override
+    public IssuedRefreshToken find(String token) {
+        return fromJson(redisTemplate.opsForValue().get(KEY_PREFIX + token));
+    }
+
+    @Override
+    public IssuedRefreshToken rotate(String oldToken, IssuedRefreshToken replacement) {
+        String old = redisTemplate.execute(ROTATE, List.of(KEY_PREFIX + oldToken, KEY_PREFIX + replacement.token()),
+                toJson(replacement), String.valueOf(ttl(replacement).toMillis()));
+        return fromJson(old);
+    }
+
+    @Override
+    public void delete(String token) {
+        redisTemplate.delete(KEY_PREFIX + token);
+    }
+
+    private static Duration ttl(IssuedRefreshToken token) {
+        Duration ttl = Duration.between(LocalDateTime.now(), token.expiryDate());
+        return ttl.isNegative() || ttl.isZero() ? Duration.ofMillis(1) : ttl;
+    }
+
+    private String toJson(IssuedRefreshToken token) {
+        try {
+            return objectMapper.writeValueAsString(token);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize refresh token", e);
+        }
+    }
+
+    private IssuedRefreshToken fromJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, IssuedRefreshToken.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not read refresh token", e);
+        }
+    }
+}
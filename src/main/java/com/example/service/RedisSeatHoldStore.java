@@ -0,0 +1,115 @@
+package com.example.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Seat holds in one Redis hash per trip, seat -> "holder|expiresAtMillis".
+ * Holds are placed and released by Lua scripts so a multi-seat hold is
+ * atomic across instances; the hash itself expires with its last hold.
+ */
+@Service
+@ConditionalOnProperty(name = "app.seat-holds.store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisSeatHoldStore implements SeatHoldStore {
+    private static final String NOW = """
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+            local function expiresAt(v) return tonumber(string.sub(v, string.find(v, '|', 1, true) + 1)) end
+            local function owner(v) return string.sub(v, 1, string.find(v, '|', 1, true) - 1) end
+            """;
+
+    // KEYS[1] trip hash, ARGV[1] holder, ARGV[2] ttl millis, ARGV[3..] seats
+    private static final RedisScript<List> HOLD = new DefaultRedisScript<>(NOW + """
+            local taken = {}
+            for i = 3, #ARGV do
+                local v = redis.call('HGET', KEYS[1], ARGV[i])
+                if v and expiresAt(v) > now and owner(v) ~= ARGV[1] then
+                    table.insert(taken, tonumber(ARGV[i]))
+                end
+            end
+            if #taken == 0 then
+                local ttl = tonumber(ARGV[2])
+                local value = ARGV[1] .. '|' .. (now + ttl)
+                for i = 3, #ARGV do
+                    redis.call('HSET', KEYS[1], ARGV[i], value)
+                end
+                if redis.call('PTTL', KEYS[1]) < ttl then
+                    redis.call('PEXPIRE', KEYS[1], ttl)
+                end
+            end
+            return taken
+            """, List.class);
+
+    // KEYS[1] trip hash, ARGV[1] holder, ARGV[2..] seats
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(NOW + """
+            local released = 0
+            for i = 2, #ARGV do
+                local v = redis.call('HGET', KEYS[1], ARGV[i])
+                if v and owner(v) == ARGV[1] then
+                    released = released + redis.call('HDEL', KEYS[1], ARGV[i])
+                end
+            end
+            return released
+            """, Long.class);
+
+    // KEYS[1] trip hash
+    private static final RedisScript<List> HELD = new DefaultRedisScript<>(NOW + """
+            local entries = redis.call('HGETALL', KEYS[1])
+            local held = {}
+            for i = 1, #entries, 2 do
+                if expiresAt(entries[i + 1]) > now then
+                    table.insert(held, tonumber(entries[i]))
+                else
+                    redis.call('HDEL', KEYS[1], entries[i])
+                end
+            end
+            return held
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Integer> hold(Long tripId, List<Integer> seatNumbers, String holder, Duration ttl) {
+        List<String> args = new ArrayList<>();
+        args.add(holder);
+        args.add(String.valueOf(ttl.toMillis()));
+        seatNumbers.forEach(seat -> args.add(seat.toString()));
+        List<Long> taken = redisTemplate.execute(HOLD, List.of(key(tripId)), args.toArray());
+        return toSeats(taken);
+    }
+
+    @Override
+    public void release(Long tripId, List<Integer> seatNumbers, String holder) {
+        List<String> args = new ArrayList<>();
+        args.add(holder);
+        seatNumbers.forEach(seat -> args.add(seat.toString()));
+        redisTemplate.execute(RELEASE, List.of(key(tripId)), args.toArray());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Integer> heldSeats(Long tripId) {
+        List<Long> held = redisTemplate.execute(HELD, List.of(key(tripId)));
+        return new HashSet<>(toSeats(held));
+    }
+
+    private static String key(Long tripId) {
+        return "smartbus:seat-holds:" + tripId;
+    }
+
+    private static List<Integer> toSeats(List<Long> seats) {
+        if (seats == null) {
+            return List.of();
+        }
+        return seats.stream().map(Long::intValue).toList();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.service;
+
+import com.example.dto.StompEnvelope;
+import com.example.dto.responses.SeatUpdateMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Multi-node fan-out over Redis pub/sub. Every node publishes to one
+ * channel and every node, the sender included, delivers what it receives
+ * to its own in-process broker. Seat deltas are numbered and published by
+ * one script so all nodes see the same sequence in the same order.
+ */
+@Service
+@ConditionalOnProperty(name = "app.websocket.broker", havingValue = "redis")
+public class RedisStompFanout implements StompFanout {
+    private static final String CHANNEL = "smartbus:stomp";
+    private static final String SEQUENCE_KEY = "smartbus:seat-seq:";
+    private static final long SEQUENCE_TTL_MILLIS = 86400000;
+
+    // KEYS[1] sequence key, ARGV[1] base if missing, ARGV[2] ttl millis, ARGV[3] envelope json, ARGV[4] channel
+    private static final RedisScript<Long> PUBLISH_SEAT_UPDATE = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('SET', KEYS[1], ARGV[1])
+            end
+            local sequence = redis.call('INCR', KEYS[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            redis.call('PUBLISH', ARGV[4], '{"sequence":' .. sequence .. ',' .. string.sub(ARGV[3], 2))
+            return sequence
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SeatDeltaLogService seatDeltaLogService;
+    private final ObjectMapper objectMapper;
+    private final Timer fanoutTimer;
+    // One delivery thread keeps messages in channel order
+    private final ExecutorService deliveryExecutor = Executors.newSingleThreadExecutor();
+    private RedisMessageListenerContainer listenerContainer;
+
+    public RedisStompFanout(StringRedisTemplate redisTemplate,
+                            RedisConnectionFactory connectionFactory,
+                            SimpMessagingTemplate messagingTemplate,
+                            SeatDeltaLogService seatDeltaLogService,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.messagingTemplate = messagingTemplate;
+        this.seatDeltaLogService = seatDeltaLogService;
+        this.objectMapper = objectMapper;
+        this.fanoutTimer = Timer.builder("smartbus.websocket.fanout.latency")
+                .description("Time from publishing a message to handing it to the local broker")
+                .tag("broker", "redis")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.setTaskExecutor(deliveryExecutor);
+        listenerContainer.addMessageListener((message, pattern) -> deliver(message), new ChannelTopic(CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @PreDestroy
+    public void unsubscribe() throws Exception {
+        listenerContainer.destroy();
+        deliveryExecutor.shutdown();
+    }
+
+    @Override
+    public void send(String destination, Object payload) {
+        redisTemplate.convertAndSend(CHANNEL, toJson(new StompEnvelope(
+                destination, System.currentTimeMillis(), null, objectMapper.valueToTree(payload))));
+    }
+
+    @Override
+    public void sendSeatUpdate(Long tripId, Map<Integer, Boolean> seatUpdates) {
+        // Sequence is filled in by the script
+        StompEnvelope envelope = new StompEnvelope("/topic/trips/" + tripId + "/seats", System.currentTimeMillis(),
+                null, objectMapper.valueToTree(new SeatUpdateMessage(tripId, 0, seatUpdates)));
+        redisTemplate.execute(PUBLISH_SEAT_UPDATE, List.of(SEQUENCE_KEY + tripId),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(SEQUENCE_TTL_MILLIS),
+                toJson(envelope), CHANNEL);
+    }
+
+    private void deliver(Message message) {
+        try {
+            StompEnvelope envelope = objectMapper.readValue(message.getBody(), StompEnvelope.class);
+            if (envelope.getSequence() != null) {
+                SeatUpdateMessage seatUpdate = objectMapper.treeToValue(envelope.getPayload(), SeatUpdateMessage.class);
+                seatUpdate.setSequence(envelope.getSequence());
+                seatDeltaLogService.record(seatUpdate);
+                messagingTemplate.convertAndSend(envelope.getDestination(), seatUpdate);
+            } else {
+                messagingTemplate.convertAndSend(envelope.getDestination(), envelope.getPayload());
+            }
+            fanoutTimer.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - envelope.getSentAt())));
+        } catch (Exception e) {
+            System.err.println("Error delivering STOMP message from Redis: " + e.getMessage());
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize STOMP message", e);
+        }
+    }
+}
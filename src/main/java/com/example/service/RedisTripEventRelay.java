@@ -0,0 +1,87 @@
+package com.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Multi-node relay over Redis pub/sub. The publishing node delivers the
+ * event to its own listeners straight away and every other node delivers
+ * the copy it receives from the channel, marked remote.
+ */
+@Service
+@ConditionalOnProperty(name = "app.trip-events.relay", havingValue = "redis")
+public class RedisTripEventRelay implements TripEventRelay {
+    private static final String CHANNEL = "smartbus:trip-events";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+    // One delivery thread keeps events in channel order
+    private final ExecutorService deliveryExecutor = Executors.newSingleThreadExecutor();
+    private RedisMessageListenerContainer listenerContainer;
+
+    public RedisTripEventRelay(StringRedisTemplate redisTemplate,
+                               RedisConnectionFactory connectionFactory,
+                               ApplicationEventPublisher eventPublisher,
+                               ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+    }
+
+    record Envelope(String node, TripStatusChangedEvent event) {
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.setTaskExecutor(deliveryExecutor);
+        listenerContainer.addMessageListener((message, pattern) -> deliver(message.getBody()), new ChannelTopic(CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @PreDestroy
+    public void unsubscribe() throws Exception {
+        listenerContainer.destroy();
+        deliveryExecutor.shutdown();
+    }
+
+    @Override
+    public void publish(TripStatusChangedEvent event) {
+        eventPublisher.publishEvent(event);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(new Envelope(nodeId, event)));
+        } catch (Exception e) {
+            // Other nodes catch up on their next index rebuild
+            System.err.println("Error relaying status change for trip " + event.tripId() + ": " + e.getMessage());
+        }
+    }
+
+    void deliver(byte[] body) {
+        try {
+            Envelope envelope = objectMapper.readValue(body, Envelope.class);
+            if (!nodeId.equals(envelope.node())) {
+                eventPublisher.publishEvent(envelope.event().asRemote());
+            }
+        } catch (Exception e) {
+            System.err.println("Error delivering trip event from Redis: " + e.getMessage());
+        }
+    }
+}
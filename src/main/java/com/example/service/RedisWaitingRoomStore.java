@@ -0,0 +1,173 @@
+package com.example.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Waiting rooms in Redis so every instance sees the same queue. Per trip a
+ * room hash (rate, seq, admitted, tick), a queue list of ticket ids, a
+ * tickets hash id -> "userId|sequence|expiresAtMillis" (0 while queued), a
+ * users hash userId -> ticket id and an admitted sorted set scored by
+ * expiry. Admission runs in a Lua script keyed on the Redis clock's second,
+ * so only one instance admits per second whatever the number of nodes.
+ */
+@Service
+@ConditionalOnProperty(name = "app.waiting-room.store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisWaitingRoomStore implements WaitingRoomStore {
+    private static final String OPEN_ROOMS = "smartbus:waiting-rooms";
+
+    private static final String NOW = """
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+            local function field(v, n)
+                local i = 1
+                for part in string.gmatch(v, '[^|]+') do
+                    if i == n then return part end
+                    i = i + 1
+                end
+            end
+            """;
+
+    // KEYS room, queue, users, tickets, admitted; ARGV[1] user, ARGV[2] new ticket id
+    private static final RedisScript<String> JOIN = new DefaultRedisScript<>(NOW + """
+            if redis.call('EXISTS', KEYS[1]) == 0 then return false end
+            local existing = redis.call('HGET', KEYS[3], ARGV[1])
+            if existing then
+                local v = redis.call('HGET', KEYS[4], existing)
+                if v then
+                    local expiresAt = tonumber(field(v, 3))
+                    if expiresAt == 0 or expiresAt > now then return existing .. '|' .. v end
+                    redis.call('HDEL', KEYS[4], existing)
+                    redis.call('ZREM', KEYS[5], existing)
+                end
+            end
+            local seq = redis.call('HINCRBY', KEYS[1], 'seq', 1)
+            local v = ARGV[1] .. '|' .. seq .. '|0'
+            redis.call('HSET', KEYS[4], ARGV[2], v)
+            redis.call('HSET', KEYS[3], ARGV[1], ARGV[2])
+            redis.call('RPUSH', KEYS[2], ARGV[2])
+            return ARGV[2] .. '|' .. v
+            """, String.class);
+
+    // KEYS room, queue, users, tickets, admitted; ARGV[1] admission millis
+    private static final RedisScript<List> ADMIT = new DefaultRedisScript<>(NOW + """
+            local admitted = {}
+            local rate = tonumber(redis.call('HGET', KEYS[1], 'rate'))
+            if not rate then return admitted end
+            local second = math.floor(now / 1000)
+            local tick = tonumber(redis.call('HGET', KEYS[1], 'tick'))
+            if tick and tick >= second then return admitted end
+            redis.call('HSET', KEYS[1], 'tick', second)
+            local expiresAt = now + tonumber(ARGV[1])
+            while #admitted < rate do
+                local id = redis.call('LPOP', KEYS[2])
+                if not id then break end
+                local v = redis.call('HGET', KEYS[4], id)
+                if v then
+                    local seq = field(v, 2)
+                    v = field(v, 1) .. '|' .. seq .. '|' .. expiresAt
+                    redis.call('HSET', KEYS[4], id, v)
+                    redis.call('ZADD', KEYS[5], expiresAt, id)
+                    redis.call('HSET', KEYS[1], 'admitted', seq)
+                    table.insert(admitted, id .. '|' .. v)
+                end
+            end
+            -- forget admissions that ran out, unless the user already queued again
+            for _, id in ipairs(redis.call('ZRANGEBYSCORE', KEYS[5], '-inf', now)) do
+                local v = redis.call('HGET', KEYS[4], id)
+                if v then
+                    local user = field(v, 1)
+                    if redis.call('HGET', KEYS[3], user) == id then redis.call('HDEL', KEYS[3], user) end
+                    redis.call('HDEL', KEYS[4], id)
+                end
+            end
+            redis.call('ZREMRANGEBYSCORE', KEYS[5], '-inf', now)
+            return admitted
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public void open(Long tripId, int admitPerSecond) {
+        redisTemplate.opsForHash().put(key(tripId, "room"), "rate", String.valueOf(admitPerSecond));
+        redisTemplate.opsForSet().add(OPEN_ROOMS, tripId.toString());
+    }
+
+    @Override
+    public void close(Long tripId) {
+        redisTemplate.opsForSet().remove(OPEN_ROOMS, tripId.toString());
+        redisTemplate.delete(keys(tripId));
+    }
+
+    @Override
+    public boolean isOpen(Long tripId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(OPEN_ROOMS, tripId.toString()));
+    }
+
+    @Override
+    public Set<Long> openTrips() {
+        Set<String> members = redisTemplate.opsForSet().members(OPEN_ROOMS);
+        Set<Long> trips = new HashSet<>();
+        if (members != null) {
+            members.forEach(member -> trips.add(Long.valueOf(member)));
+        }
+        return trips;
+    }
+
+    @Override
+    public Ticket join(Long tripId, Long userId) {
+        String ticket = redisTemplate.execute(JOIN, keys(tripId), userId.toString(), UUID.randomUUID().toString());
+        return ticket != null ? parse(ticket) : null;
+    }
+
+    @Override
+    public Ticket find(Long tripId, String ticketId) {
+        Object value = redisTemplate.opsForHash().get(key(tripId, "tickets"), ticketId);
+        return value != null ? parse(ticketId + "|" + value) : null;
+    }
+
+    @Override
+    public long admittedSequence(Long tripId) {
+        Object value = redisTemplate.opsForHash().get(key(tripId, "room"), "admitted");
+        return value != null ? Long.parseLong(value.toString()) : 0;
+    }
+
+    @Override
+    public long depth(Long tripId) {
+        Long size = redisTemplate.opsForList().size(key(tripId, "queue"));
+        return size != null ? size : 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Ticket> admit(Long tripId, long admissionMillis) {
+        List<String> admitted = redisTemplate.execute(ADMIT, keys(tripId), String.valueOf(admissionMillis));
+        if (admitted == null) {
+            return List.of();
+        }
+        return admitted.stream().map(RedisWaitingRoomStore::parse).toList();
+    }
+
+    private static List<String> keys(Long tripId) {
+        return List.of(key(tripId, "room"), key(tripId, "queue"), key(tripId, "users"),
+                key(tripId, "tickets"), key(tripId, "admitted"));
+    }
+
+    private static String key(Long tripId, String part) {
+        return "smartbus:waiting-room:" + tripId + ":" + part;
+    }
+
+    // "id|userId|sequence|expiresAtMillis"
+    private static Ticket parse(String value) {
+        String[] parts = value.split("\\|");
+        long expiresAt = Long.parseLong(parts[3]);
+        return new Ticket(parts[0], Long.valueOf(parts[1]), Long.parseLong(parts[2]), expiresAt > 0 ? expiresAt : null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.service;
+
+/**
+ * Where refresh tokens live. Implementations drop tokens once they
+ * expire; app.refresh-tokens.store picks jpa (default), redis or memory.
+ */
+public interface RefreshTokenStore {
+
+    void save(IssuedRefreshToken token);
+
+    // Null if the token is unknown or already gone
+    IssuedRefreshToken find(String token);
+
+    /**
+     * Replace {@code oldToken} with {@code replacement} in one step.
+     * Returns the old token, or null if it was already used or removed,
+     * in which case nothing is saved.
+     */
+    IssuedRefreshToken rotate(String oldToken, IssuedRefreshToken replacement);
+
+    void delete(String token);
+}
@@ -0,0 +1,280 @@
+package com.example.service;
+
+import com.example.model.BookingStatus;
+import com.example.repository.BookingRepository;
+import com.example.repository.BookingStatusView;
+import com.example.repository.RouteBookingTotals;
+import com.example.repository.RouteTripTotals;
+import com.example.repository.TripRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-route booking, revenue, trip and seat counters, updated from booking
+ * status events so analytics reads cost one lookup per route. The counters
+ * are rebuilt from aggregate queries at startup and every 15 minutes; that
+ * also repairs any drift, e.g. from events lost in a crash or trips moved
+ * to another route, and brings in changes made on other nodes, which this
+ * node has no events for.
+ */
+@Service
+public class RouteStatsService {
+    private final BookingRepository bookingRepository;
+    private final TripRepository tripRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private volatile Map<Long, RouteCounters> counters = new ConcurrentHashMap<>();
+    // Updates take the read side, swapping in reconciled counters the write side
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Updates made while a reconcile is querying, replayed over its result; null when not reconciling
+    private volatile Journal reconcileJournal;
+    private volatile long lastReconcileMillis;
+
+    public RouteStatsService(BookingRepository bookingRepository, TripRepository tripRepository,
+                             PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.tripRepository = tripRepository;
+        // One snapshot for all three aggregate queries
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        Gauge.builder("smartbus.analytics.route_stats.age", this,
+                        service -> service.lastReconcileMillis == 0 ? Double.NaN
+                                : (System.currentTimeMillis() - service.lastReconcileMillis) / 1000.0)
+                .description("Seconds since the route statistics were reconciled with the database")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public record RouteStats(long pendingBookings, long confirmedBookings, long cancelledBookings,
+                             long expiredBookings, double confirmedRevenue, long confirmedSeats,
+                             long trips, long offeredSeats) {
+
+        static final RouteStats EMPTY = new RouteStats(0, 0, 0, 0, 0, 0, 0, 0);
+
+        public long totalBookings() {
+            return pendingBookings + confirmedBookings + cancelledBookings + expiredBookings;
+        }
+    }
+
+    private record TripsAdded(Long routeId, List<Long> tripIds, int seatsPerTrip) {
+    }
+
+    private record Journal(Queue<BookingStatusChangedEvent> bookings, Queue<TripsAdded> trips) {
+    }
+
+    private static final class RouteCounters {
+        private final LongAdder[] bookings = new LongAdder[BookingStatus.values().length];
+        private final DoubleAdder confirmedRevenue = new DoubleAdder();
+        private final LongAdder confirmedSeats = new LongAdder();
+        private final LongAdder trips = new LongAdder();
+        private final LongAdder offeredSeats = new LongAdder();
+
+        RouteCounters() {
+            for (int i = 0; i < bookings.length; i++) {
+                bookings[i] = new LongAdder();
+            }
+        }
+
+        long bookings(BookingStatus status) {
+            return bookings[status.ordinal()].sum();
+        }
+
+        RouteStats snapshot() {
+            return new RouteStats(bookings(BookingStatus.PENDING), bookings(BookingStatus.CONFIRMED),
+                    bookings(BookingStatus.CANCELLED), bookings(BookingStatus.EXPIRED),
+                    confirmedRevenue.sum(), confirmedSeats.sum(), trips.sum(), offeredSeats.sum());
+        }
+    }
+
+    public RouteStats get(Long routeId) {
+        RouteCounters routeCounters = counters.get(routeId);
+        return routeCounters != null ? routeCounters.snapshot() : RouteStats.EMPTY;
+    }
+
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        swapLock.readLock().lock();
+        try {
+            apply(counters, event);
+            Journal journal = reconcileJournal;
+            if (journal != null) {
+                journal.bookings().add(event);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // Count new trips on a route once their transaction commits
+    public void tripsAdded(Long routeId, List<Long> tripIds, int seatsPerTrip) {
+        TripsAdded added = new TripsAdded(routeId, tripIds, seatsPerTrip);
+        TransactionHooks.afterCommit(() -> {
+            swapLock.readLock().lock();
+            try {
+                apply(counters, added.routeId(), added.tripIds().size(), added.seatsPerTrip());
+                Journal journal = reconcileJournal;
+                if (journal != null) {
+                    journal.trips().add(added);
+                }
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        });
+    }
+
+    private static void apply(Map<Long, RouteCounters> map, Long routeId, int trips, int seatsPerTrip) {
+        RouteCounters route = map.computeIfAbsent(routeId, id -> new RouteCounters());
+        route.trips.add(trips);
+        route.offeredSeats.add((long) trips * seatsPerTrip);
+    }
+
+    private static void apply(Map<Long, RouteCounters> map, BookingStatusChangedEvent event) {
+        RouteCounters route = map.computeIfAbsent(event.routeId(), id -> new RouteCounters());
+        if (event.previousStatus() != null) {
+            route.bookings[event.previousStatus().ordinal()].decrement();
+        }
+        route.bookings[event.status().ordinal()].increment();
+        if (event.status() == BookingStatus.CONFIRMED) {
+            route.confirmedRevenue.add(event.amount());
+            route.confirmedSeats.add(event.seats());
+        }
+        if (event.previousStatus() == BookingStatus.CONFIRMED) {
+            route.confirmedRevenue.add(-event.amount());
+            route.confirmedSeats.add(-event.seats());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reconcile();
+    }
+
+    /**
+     * Rebuild every counter from the source tables and swap them in. Updates
+     * made while the queries run are journalled. Before the swap, still in
+     * the same snapshot, the journalled bookings and trips are looked up and
+     * only the changes the snapshot has not seen are replayed over the
+     * result; a change can commit before the snapshot and still reach the
+     * journal. Returns the number of routes whose counters had drifted.
+     */
+    @Scheduled(fixedRate = 900000, initialDelay = 900000) // Every 15 minutes
+    public synchronized int reconcile() {
+        reconcileJournal = new Journal(new ConcurrentLinkedQueue<>(), new ConcurrentLinkedQueue<>());
+        try {
+            Integer result = snapshotTransaction.execute(status -> {
+                Map<Long, RouteCounters> fresh = load();
+                int drifted = 0;
+                // Updates wait for the lookups below, two indexed reads of the journalled ids
+                swapLock.writeLock().lock();
+                try {
+                    replay(reconcileJournal, fresh);
+                    if (lastReconcileMillis != 0) {
+                        for (Map.Entry<Long, RouteCounters> entry : fresh.entrySet()) {
+                            if (hasDrifted(entry.getValue().snapshot(), get(entry.getKey()))) {
+                                drifted++;
+                            }
+                        }
+                    }
+                    counters = fresh;
+                    reconcileJournal = null;
+                } finally {
+                    swapLock.writeLock().unlock();
+                }
+                return drifted;
+            });
+            int drifted = result != null ? result : 0;
+            lastReconcileMillis = System.currentTimeMillis();
+            if (drifted > 0) {
+                System.out.println("Route statistics reconciled, " + drifted + " routes had drifted");
+            }
+            return drifted;
+        } catch (Exception e) {
+            System.err.println("Error reconciling route statistics: " + e.getMessage());
+            return 0;
+        } finally {
+            reconcileJournal = null;
+        }
+    }
+
+    private Map<Long, RouteCounters> load() {
+        Map<Long, RouteCounters> fresh = new ConcurrentHashMap<>();
+        for (RouteBookingTotals totals : bookingRepository.sumByRouteAndStatus()) {
+            RouteCounters route = fresh.computeIfAbsent(totals.routeId(), id -> new RouteCounters());
+            route.bookings[totals.status().ordinal()].add(totals.bookings());
+            if (totals.status() == BookingStatus.CONFIRMED) {
+                route.confirmedRevenue.add(totals.amount() != null ? totals.amount() : 0);
+            }
+        }
+        for (RouteTripTotals totals : bookingRepository.sumSeatsByRoute(BookingStatus.CONFIRMED)) {
+            fresh.computeIfAbsent(totals.routeId(), id -> new RouteCounters()).confirmedSeats.add(totals.seats());
+        }
+        for (RouteTripTotals totals : tripRepository.sumTripsByRoute()) {
+            RouteCounters route = fresh.computeIfAbsent(totals.routeId(), id -> new RouteCounters());
+            route.trips.add(totals.trips());
+            route.offeredSeats.add(totals.seats() != null ? totals.seats() : 0);
+        }
+        return fresh;
+    }
+
+    // Runs inside the reconcile snapshot, so the lookups see exactly what load() read
+    private void replay(Journal journal, Map<Long, RouteCounters> fresh) {
+        Map<Long, List<BookingStatusChangedEvent>> byBooking = new LinkedHashMap<>();
+        for (BookingStatusChangedEvent event : journal.bookings()) {
+            byBooking.computeIfAbsent(event.bookingId(), id -> new ArrayList<>()).add(event);
+        }
+        if (!byBooking.isEmpty()) {
+            Map<Long, BookingStatus> read = new HashMap<>();
+            for (BookingStatusView booking : bookingRepository.findStatusByIdIn(byBooking.keySet())) {
+                read.put(booking.getId(), booking.getStatus());
+            }
+            byBooking.forEach((bookingId, events) -> {
+                // A booking never returns to an earlier status, so the snapshot
+                // saw every change up to the last one that produced its status
+                int next = 0;
+                BookingStatus status = read.get(bookingId);
+                for (int i = 0; i < events.size(); i++) {
+                    if (events.get(i).status() == status) {
+                        next = i + 1;
+                    }
+                }
+                events.subList(next, events.size()).forEach(event -> apply(fresh, event));
+            });
+        }
+        List<Long> tripIds = journal.trips().stream().flatMap(added -> added.tripIds().stream()).toList();
+        if (!tripIds.isEmpty()) {
+            Set<Long> read = new HashSet<>(tripRepository.findIdsByIdIn(tripIds));
+            for (TripsAdded added : journal.trips()) {
+                int unseen = (int) added.tripIds().stream().filter(id -> !read.contains(id)).count();
+                if (unseen > 0) {
+                    apply(fresh, added.routeId(), unseen, added.seatsPerTrip());
+                }
+            }
+        }
+    }
+
+    private static boolean hasDrifted(RouteStats actual, RouteStats counted) {
+        return actual.pendingBookings() != counted.pendingBookings()
+                || actual.confirmedBookings() != counted.confirmedBookings()
+                || actual.cancelledBookings() != counted.cancelledBookings()
+                || actual.expiredBookings() != counted.expiredBookings()
+                || actual.confirmedSeats() != counted.confirmedSeats()
+                || actual.trips() != counted.trips()
+                || actual.offeredSeats() != counted.offeredSeats()
+                || Math.abs(actual.confirmedRevenue() - counted.confirmedRevenue()) > 0.005;
+    }
+}
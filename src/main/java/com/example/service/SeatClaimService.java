@@ -0,0 +1,57 @@
+package com.example.service;
+
+import com.example.repository.SeatClaimRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Database side of seat ownership. Seats are claimed with a single
+ * INSERT .. ON CONFLICT against trip_seat_claims, so concurrent buyers are
+ * decided by the unique key instead of by the Trip version.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class SeatClaimService {
+    private final SeatClaimRepository seatClaimRepository;
+
+    /**
+     * Claim seats for a booking. Returns the seats someone else holds;
+     * the caller must roll back when that list is not empty.
+     */
+    public List<Integer> claim(Long tripId, Long bookingId, int totalSeats, List<Integer> seatNumbers) {
+        List<Integer> claimed = seatClaimRepository.claimSeats(tripId, bookingId, totalSeats, seatNumbers);
+        List<Integer> taken = new ArrayList<>(seatNumbers);
+        taken.removeAll(claimed);
+        return taken;
+    }
+
+    public void release(Long bookingId) {
+        seatClaimRepository.deleteByBookingId(bookingId);
+    }
+
+    public void releaseAll(Collection<Long> bookingIds) {
+        seatClaimRepository.deleteByBookingIdIn(bookingIds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfillClaims() {
+        try {
+            int inserted = seatClaimRepository.backfillFromBookings();
+            if (inserted > 0) {
+                System.out.println("Backfilled " + inserted + " seat claims from existing bookings");
+            }
+        } catch (Exception e) {
+            System.err.println("Error backfilling seat claims: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.service;
+
+import com.example.dto.responses.SeatUpdateMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The last few seat deltas of one trip in a ring buffer, so a client that
+ * reconnects can catch up from its last sequence number instead of
+ * reloading the whole seat map.
+ */
+public class SeatDeltaLog {
+    private final Long tripId;
+    private final SeatUpdateMessage[] ring;
+    private long lastSequence;
+    private volatile long lastAppendMillis;
+
+    /**
+     * Sequences start from {@code baseSequence}; using the clock keeps them
+     * increasing across restarts, so stale client positions never match.
+     */
+    public SeatDeltaLog(Long tripId, int capacity, long baseSequence) {
+        this.tripId = tripId;
+        this.ring = new SeatUpdateMessage[capacity];
+        this.lastSequence = baseSequence;
+        this.lastAppendMillis = System.currentTimeMillis();
+    }
+
+    public synchronized SeatUpdateMessage append(Map<Integer, Boolean> seatUpdates) {
+        SeatUpdateMessage message = new SeatUpdateMessage(tripId, lastSequence + 1, seatUpdates);
+        record(message);
+        return message;
+    }
+
+    /**
+     * Keep a delta numbered by someone else. Late or repeated deltas are
+     * ignored; a jump leaves a hole that {@link #since} will not cross.
+     */
+    public synchronized void record(SeatUpdateMessage message) {
+        if (message.getSequence() <= lastSequence) {
+            return;
+        }
+        lastSequence = message.getSequence();
+        ring[(int) (lastSequence % ring.length)] = message;
+        lastAppendMillis = System.currentTimeMillis();
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getLastAppendMillis() {
+        return lastAppendMillis;
+    }
+
+    /**
+     * Deltas after {@code sinceSequence}, oldest first. Returns null when
+     * they are no longer all in the ring or the sequence is not from this log.
+     */
+    public synchronized List<SeatUpdateMessage> since(long sinceSequence) {
+        if (sinceSequence > lastSequence || lastSequence - sinceSequence > ring.length) {
+            return null;
+        }
+        List<SeatUpdateMessage> deltas = new ArrayList<>((int) (lastSequence - sinceSequence));
+        for (long sequence = sinceSequence + 1; sequence <= lastSequence; sequence++) {
+            SeatUpdateMessage message = ring[(int) (sequence % ring.length)];
+            if (message == null || message.getSequence() != sequence) {
+                return null;
+            }
+            deltas.add(message);
+        }
+        return deltas;
+    }
+}
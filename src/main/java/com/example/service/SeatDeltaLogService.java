@@ -0,0 +1,58 @@
+package com.example.service;
+
+import com.example.dto.responses.SeatUpdateMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent seat deltas per trip on this node, numbered either locally or
+ * by the shared counter when seat updates fan out through Redis.
+ */
+@Service
+public class SeatDeltaLogService {
+    private static final int SEAT_LOG_SIZE = 256;
+    private static final long SEAT_LOG_IDLE_MILLIS = 3600000;
+
+    private final Map<Long, SeatDeltaLog> seatLogs = new ConcurrentHashMap<>();
+    // Shared sequences come from Redis, so local logs must accept whatever it hands out
+    private final boolean sharedSequences;
+
+    public SeatDeltaLogService(@Value("${app.websocket.broker:simple}") String broker) {
+        this.sharedSequences = "redis".equals(broker);
+    }
+
+    // Number a delta locally, single node only
+    public SeatUpdateMessage append(Long tripId, Map<Integer, Boolean> seatUpdates) {
+        return getSeatLog(tripId).append(seatUpdates);
+    }
+
+    // Keep a delta numbered elsewhere
+    public void record(SeatUpdateMessage message) {
+        getSeatLog(message.getTripId()).record(message);
+    }
+
+    public long getLastSequence(Long tripId) {
+        return getSeatLog(tripId).getLastSequence();
+    }
+
+    public List<SeatUpdateMessage> since(Long tripId, long sinceSequence) {
+        return getSeatLog(tripId).since(sinceSequence);
+    }
+
+    // Forget logs of trips with no recent seat changes
+    @Scheduled(fixedRate = 600000)
+    public void purgeIdleSeatLogs() {
+        long cutoff = System.currentTimeMillis() - SEAT_LOG_IDLE_MILLIS;
+        seatLogs.values().removeIf(log -> log.getLastAppendMillis() < cutoff);
+    }
+
+    private SeatDeltaLog getSeatLog(Long tripId) {
+        return seatLogs.computeIfAbsent(tripId,
+                id -> new SeatDeltaLog(id, SEAT_LOG_SIZE, sharedSequences ? 0 : System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Short-lived seat holds shared by every SmartBus instance. A hold is
+ * placed for all requested seats or none and disappears on its own once
+ * the TTL runs out.
+ */
+public interface SeatHoldStore {
+
+    /**
+     * Hold seats for {@code holder}. Returns the seats held by someone else,
+     * empty when all seats were held.
+     */
+    List<Integer> hold(Long tripId, List<Integer> seatNumbers, String holder, Duration ttl);
+
+    // Release seats still held by holder
+    void release(Long tripId, List<Integer> seatNumbers, String holder);
+
+    Set<Integer> heldSeats(Long tripId);
+}
@@ -0,0 +1,111 @@
+package com.example.service;
+
+import com.example.exception.ResourceNotFoundException;
+import com.example.model.BookingStatus;
+import com.example.model.Trip;
+import com.example.model.TripStatus;
+import com.example.repository.BookingRepository;
+import com.example.repository.TripRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory seat state per trip. A trip is loaded from booking_seats the
+ * first time it is touched and then kept current by the booking flows,
+ * so availability reads do not go to the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeatInventoryService {
+    // Bookings that hold their seats
+    static final Set<BookingStatus> HOLDING_STATUSES = EnumSet.of(BookingStatus.PENDING, BookingStatus.CONFIRMED);
+
+    private final TripRepository tripRepository;
+    private final BookingRepository bookingRepository;
+    private final Map<Long, TripSeatMap> seatMaps = new ConcurrentHashMap<>();
+
+    public TripSeatMap getSeatMap(Long tripId) {
+        return seatMaps.computeIfAbsent(tripId, this::load);
+    }
+
+    /**
+     * Claim seats for the current transaction. The claim becomes permanent
+     * on commit and is dropped on rollback. Returns the seats already taken.
+     */
+    public List<Integer> claim(Long tripId, List<Integer> seatNumbers) {
+        TripSeatMap seatMap = getSeatMap(tripId);
+        List<Integer> taken = seatMap.tryClaim(seatNumbers);
+        if (taken.isEmpty()) {
+            TransactionHooks.afterCommit(() -> seatMap.commit(seatNumbers));
+            TransactionHooks.afterRollback(() -> seatMap.abandon(seatNumbers));
+        }
+        return taken;
+    }
+
+    // Free seats once the releasing transaction commits
+    public void release(Long tripId, List<Integer> seatNumbers) {
+        TransactionHooks.afterCommit(() -> {
+            TripSeatMap seatMap = seatMaps.get(tripId);
+            if (seatMap != null) {
+                seatMap.release(seatNumbers);
+            }
+        });
+    }
+
+    // Drop a trip so the next access reloads it, e.g. after a status or bus change
+    public void evict(Long tripId) {
+        TransactionHooks.afterCommit(() -> seatMaps.remove(tripId));
+    }
+
+    @EventListener
+    public void onTripStatusChanged(TripStatusChangedEvent event) {
+        seatMaps.remove(event.tripId());
+    }
+
+    /**
+     * Compare the cached seat map of a trip with booking_seats.
+     * Returns the seat numbers that disagree, empty if the trip is not cached.
+     */
+    public List<Integer> verifyConsistency(Long tripId) {
+        TripSeatMap seatMap = seatMaps.get(tripId);
+        if (seatMap == null) {
+            return List.of();
+        }
+        return seatMap.diff(findBookedSeats(tripId));
+    }
+
+    @Scheduled(fixedRate = 600000) // Every 10 minutes
+    public void reconcileSeatMaps() {
+        for (TripSeatMap seatMap : seatMaps.values()) {
+            try {
+                List<Integer> booked = findBookedSeats(seatMap.getTripId());
+                List<Integer> mismatched = seatMap.diff(booked);
+                if (!mismatched.isEmpty()) {
+                    System.err.println("Seat map drift on trip " + seatMap.getTripId() + ", seats " + mismatched);
+                    seatMap.resync(booked);
+                }
+            } catch (Exception e) {
+                System.err.println("Error reconciling seat map for trip " + seatMap.getTripId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private TripSeatMap load(Long tripId) {
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
+        boolean bookable = trip.isActive() && trip.getStatus() == TripStatus.SCHEDULED;
+        return new TripSeatMap(tripId, trip.getBus().getTotalSeats(), bookable, findBookedSeats(tripId));
+    }
+
+    private List<Integer> findBookedSeats(Long tripId) {
+        return bookingRepository.findSeatNumbersByTripIdAndStatusIn(tripId, HOLDING_STATUSES);
+    }
+}
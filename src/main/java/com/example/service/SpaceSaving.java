@@ -0,0 +1,110 @@
+package com.example.service;
+
+import java.util.*;
+
+/**
+ * Space-Saving heavy-hitter sketch holding at most {@code capacity}
+ * counters. Every tracked count is an upper bound that overestimates by at
+ * most its {@code error}, itself at most total / capacity, and any item not
+ * tracked occurred at most {@link #minCount()} times. Sketches merge by
+ * adding counts, charging a missing item the other side's minimum.
+ */
+final class SpaceSaving {
+    private final int capacity;
+    // item -> {count, error}
+    private final Map<Long, long[]> counters = new HashMap<>();
+    private long total;
+
+    record Item(long item, long count, long error) {
+    }
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void add(long item, long weight) {
+        total += weight;
+        long[] counter = counters.get(item);
+        if (counter != null) {
+            counter[0] += weight;
+        } else if (counters.size() < capacity) {
+            counters.put(item, new long[]{weight, 0});
+        } else {
+            // Take over the smallest counter; its count becomes the new item's error
+            Map.Entry<Long, long[]> min = Collections.min(counters.entrySet(),
+                    Comparator.comparingLong(entry -> entry.getValue()[0]));
+            counters.remove(min.getKey());
+            long floor = min.getValue()[0];
+            counters.put(item, new long[]{floor + weight, floor});
+        }
+    }
+
+    void merge(SpaceSaving other) {
+        List<Item> theirs;
+        long theirTotal;
+        long theirMin;
+        synchronized (other) {
+            theirs = other.itemsLocked();
+            theirTotal = other.total;
+            theirMin = other.minCountLocked();
+        }
+        synchronized (this) {
+            long ourMin = minCountLocked();
+            Map<Long, long[]> merged = new HashMap<>();
+            for (Map.Entry<Long, long[]> entry : counters.entrySet()) {
+                long[] counter = entry.getValue();
+                merged.put(entry.getKey(), new long[]{counter[0] + theirMin, counter[1] + theirMin});
+            }
+            for (Item item : theirs) {
+                long[] counter = merged.get(item.item());
+                if (counter != null) {
+                    // Replace the assumed minimum with the real count
+                    counter[0] += item.count() - theirMin;
+                    counter[1] += item.error() - theirMin;
+                } else {
+                    merged.put(item.item(), new long[]{item.count() + ourMin, item.error() + ourMin});
+                }
+            }
+            counters.clear();
+            merged.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                    .limit(capacity)
+                    .forEach(entry -> counters.put(entry.getKey(), entry.getValue()));
+            total += theirTotal;
+        }
+    }
+
+    // Tracked items, highest count first
+    synchronized List<Item> top(int limit) {
+        return itemsLocked().stream()
+                .sorted(Comparator.comparingLong(Item::count).reversed().thenComparingLong(Item::item))
+                .limit(limit)
+                .toList();
+    }
+
+    synchronized long total() {
+        return total;
+    }
+
+    // Upper bound for the count of any item that is not tracked
+    synchronized long minCount() {
+        return minCountLocked();
+    }
+
+    private List<Item> itemsLocked() {
+        List<Item> items = new ArrayList<>(counters.size());
+        counters.forEach((item, counter) -> items.add(new Item(item, counter[0], counter[1])));
+        return items;
+    }
+
+    private long minCountLocked() {
+        if (counters.size() < capacity) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (long[] counter : counters.values()) {
+            min = Math.min(min, counter[0]);
+        }
+        return min;
+    }
+}
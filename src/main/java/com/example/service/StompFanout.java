@@ -0,0 +1,15 @@
+package com.example.service;
+
+import java.util.Map;
+
+/**
+ * Delivers STOMP messages to subscribers, on this node only or on every
+ * node of the deployment depending on app.websocket.broker.
+ */
+public interface StompFanout {
+
+    void send(String destination, Object payload);
+
+    // Number the delta for the trip and send it to /topic/trips/{tripId}/seats
+    void sendSeatUpdate(Long tripId, Map<Integer, Boolean> seatUpdates);
+}
@@ -0,0 +1,10 @@
+package com.example.service;
+
+// One trip in the timetable; times are epoch seconds in the server's zone
+public record TimetableEntry(long tripId, long departureParkId, long arrivalParkId,
+                             long departure, long arrival, double price, int availableSeats) {
+
+    TimetableEntry withAvailableSeats(int seats) {
+        return new TimetableEntry(tripId, departureParkId, arrivalParkId, departure, arrival, price, seats);
+    }
+}
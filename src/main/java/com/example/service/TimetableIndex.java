@@ -0,0 +1,269 @@
+package com.example.service;
+
+import com.example.model.Trip;
+import com.example.model.TripStatus;
+import com.example.repository.TimetableRow;
+import com.example.repository.TripRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bookable trips by (origin, destination, service date), each day a
+ * departure-sorted array. Built from the trips table at startup and every
+ * hour, and patched after commit by trip and booking changes, so
+ * timetable reads never go to the database. Arrays are copied on write.
+ */
+@Service
+public class TimetableIndex {
+    private static final Comparator<TimetableEntry> BY_DEPARTURE =
+            Comparator.comparingLong(TimetableEntry::departure).thenComparingLong(TimetableEntry::tripId);
+
+    private final TripRepository tripRepository;
+    private volatile Map<TimetableKey, TimetableEntry[]> days = new ConcurrentHashMap<>();
+    // Guarded by this
+    private Map<Long, TimetableKey> keyByTrip = new HashMap<>();
+    // Trip changes made while a rebuild is loading, replayed over its result; null when not rebuilding
+    private Map<Long, Optional<Placement>> rebuildJournal;
+    // Seat deltas for trips not indexed yet while a rebuild is loading, replayed after the placements
+    private Map<Long, Integer> seatJournal;
+    private volatile long lastRebuildMillis;
+    private volatile long lastChangeMillis;
+    // Bumped on every change so derived views know when to refresh
+    private volatile long version;
+
+    public TimetableIndex(TripRepository tripRepository, MeterRegistry meterRegistry) {
+        this.tripRepository = tripRepository;
+        Gauge.builder("smartbus.timetable.rebuild.age", this, index -> secondsSince(index.lastRebuildMillis))
+                .description("Seconds since the timetable was last rebuilt from the database")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("smartbus.timetable.change.age", this, index -> secondsSince(index.lastChangeMillis))
+                .description("Seconds since the timetable last took a trip or seat change")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("smartbus.timetable.trips", this, TimetableIndex::size)
+                .description("Trips in the timetable")
+                .register(meterRegistry);
+    }
+
+    public record TimetableKey(String origin, String destination, LocalDate date) {
+    }
+
+    private record Placement(TimetableKey key, TimetableEntry entry) {
+    }
+
+    public List<TimetableEntry> find(String origin, String destination, LocalDate date) {
+        TimetableEntry[] entries = days.get(new TimetableKey(origin, destination, date));
+        return entries != null ? Arrays.asList(entries) : List.of();
+    }
+
+    // Every day in the index for the given date, whatever the city pair
+    public Map<TimetableKey, TimetableEntry[]> departingOn(LocalDate date) {
+        Map<TimetableKey, TimetableEntry[]> result = new HashMap<>();
+        days.forEach((key, entries) -> {
+            if (key.date().equals(date)) {
+                result.put(key, entries);
+            }
+        });
+        return result;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public synchronized int size() {
+        return keyByTrip.size();
+    }
+
+    // Reflect a created or edited trip once its transaction commits
+    public void upsert(Trip trip) {
+        Long tripId = trip.getId();
+        Placement placement = isListed(trip) ? placementOf(trip) : null;
+        TransactionHooks.afterCommit(() -> place(tripId, placement));
+    }
+
+    public void remove(Long tripId) {
+        TransactionHooks.afterCommit(() -> place(tripId, null));
+    }
+
+    // Only SCHEDULED trips are bookable, so any status change takes the trip out
+    @EventListener
+    public void onTripStatusChanged(TripStatusChangedEvent event) {
+        place(event.tripId(), null);
+    }
+
+    public void adjustSeats(Long tripId, int delta) {
+        TransactionHooks.afterCommit(() -> applySeatDelta(tripId, delta));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("Error building timetable index: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 3600000, initialDelay = 3600000) // Every hour, drops past days too
+    public void scheduledRebuild() {
+        build();
+    }
+
+    /**
+     * Reload every bookable trip from today on and swap the result in.
+     * Returns the number of trips indexed.
+     */
+    public int rebuild() {
+        synchronized (this) {
+            if (rebuildJournal != null) {
+                return keyByTrip.size(); // already running
+            }
+            rebuildJournal = new HashMap<>();
+            seatJournal = new HashMap<>();
+        }
+        try {
+            List<TimetableRow> rows = tripRepository.findTimetableRows(LocalDate.now().atStartOfDay());
+            Map<TimetableKey, List<TimetableEntry>> grouped = new HashMap<>();
+            Map<Long, TimetableKey> newKeyByTrip = new HashMap<>(rows.size() * 2);
+            for (TimetableRow row : rows) {
+                TimetableKey key = new TimetableKey(row.origin(), row.destination(), row.departureTime().toLocalDate());
+                grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(new TimetableEntry(row.tripId(),
+                        row.departureParkId(), row.arrivalParkId(), toEpochSeconds(row.departureTime()), toEpochSeconds(row.arrivalTime()),
+                        row.amount(), row.availableSeats()));
+                newKeyByTrip.put(row.tripId(), key);
+            }
+            Map<TimetableKey, TimetableEntry[]> newDays = new ConcurrentHashMap<>(grouped.size() * 2);
+            grouped.forEach((key, entries) -> {
+                TimetableEntry[] sorted = entries.toArray(new TimetableEntry[0]);
+                Arrays.sort(sorted, BY_DEPARTURE);
+                newDays.put(key, sorted);
+            });
+
+            synchronized (this) {
+                days = newDays;
+                keyByTrip = newKeyByTrip;
+                rebuildJournal.forEach((tripId, placement) -> apply(tripId, placement.orElse(null)));
+                seatJournal.forEach((tripId, delta) -> {
+                    TimetableKey key = keyByTrip.get(tripId);
+                    if (key != null) {
+                        shiftSeats(key, tripId, delta);
+                    }
+                });
+                rebuildJournal = null;
+                seatJournal = null;
+                lastRebuildMillis = System.currentTimeMillis();
+                version++;
+                return keyByTrip.size();
+            }
+        } finally {
+            synchronized (this) {
+                rebuildJournal = null;
+                seatJournal = null;
+            }
+        }
+    }
+
+    private synchronized void place(Long tripId, Placement placement) {
+        apply(tripId, placement);
+        if (rebuildJournal != null) {
+            rebuildJournal.put(tripId, Optional.ofNullable(placement));
+            seatJournal.remove(tripId); // the placement carries the seats
+        }
+    }
+
+    // Caller holds the lock
+    private void apply(Long tripId, Placement placement) {
+        TimetableKey oldKey = keyByTrip.remove(tripId);
+        if (oldKey != null) {
+            days.computeIfPresent(oldKey, (key, entries) -> {
+                TimetableEntry[] kept = Arrays.stream(entries)
+                        .filter(entry -> entry.tripId() != tripId)
+                        .toArray(TimetableEntry[]::new);
+                return kept.length > 0 ? kept : null;
+            });
+        }
+        if (placement != null) {
+            days.compute(placement.key(), (key, entries) -> {
+                TimetableEntry[] added = entries != null ? Arrays.copyOf(entries, entries.length + 1) : new TimetableEntry[1];
+                added[added.length - 1] = placement.entry();
+                Arrays.sort(added, BY_DEPARTURE);
+                return added;
+            });
+            keyByTrip.put(tripId, placement.key());
+        }
+        lastChangeMillis = System.currentTimeMillis();
+        version++;
+    }
+
+    private synchronized void applySeatDelta(Long tripId, int delta) {
+        TimetableKey key = keyByTrip.get(tripId);
+        if (key == null) {
+            if (rebuildJournal != null) {
+                // The rebuild may be loading this trip, so shift it once the result is in
+                seatJournal.merge(tripId, delta, Integer::sum);
+            }
+            return;
+        }
+        TimetableEntry updated = shiftSeats(key, tripId, delta);
+        if (rebuildJournal != null && updated != null) {
+            // Journal the resulting count rather than the delta, the rebuild may already have read it
+            rebuildJournal.put(tripId, Optional.of(new Placement(key, updated)));
+        }
+    }
+
+    // Caller holds the lock; returns the updated entry
+    private TimetableEntry shiftSeats(TimetableKey key, Long tripId, int delta) {
+        TimetableEntry[] result = new TimetableEntry[1];
+        days.computeIfPresent(key, (k, entries) -> {
+            TimetableEntry[] updated = entries.clone();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i].tripId() == tripId) {
+                    updated[i] = updated[i].withAvailableSeats(updated[i].availableSeats() + delta);
+                    result[0] = updated[i];
+                }
+            }
+            return updated;
+        });
+        lastChangeMillis = System.currentTimeMillis();
+        version++;
+        return result[0];
+    }
+
+    private static boolean isListed(Trip trip) {
+        return trip.isActive() && trip.getStatus() == TripStatus.SCHEDULED
+                && !trip.getDepartureTime().toLocalDate().isBefore(LocalDate.now());
+    }
+
+    private static Placement placementOf(Trip trip) {
+        TimetableKey key = new TimetableKey(trip.getRoute().getOrigin(), trip.getRoute().getDestination(),
+                trip.getDepartureTime().toLocalDate());
+        return new Placement(key, new TimetableEntry(trip.getId(),
+                trip.getDeparturePark().getId(), trip.getArrivalPark().getId(), toEpochSeconds(trip.getDepartureTime()),
+                toEpochSeconds(trip.getArrivalTime()), trip.getAmount(), trip.getAvailableSeats()));
+    }
+
+    static long toEpochSeconds(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    static LocalDateTime toLocalDateTime(long epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault());
+    }
+
+    private static double secondsSince(long millis) {
+        return millis == 0 ? Double.NaN : (System.currentTimeMillis() - millis) / 1000.0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes collected from every booking mutation in one dispatcher batch.
+ * Seat counters are written once per trip and seat messages are merged
+ * per trip when the batch commits.
+ */
+public class TripBatch {
+    private final Map<Long, Integer> seatDeltas = new HashMap<>();
+    private final Map<Long, Map<Integer, Boolean>> seatUpdates = new HashMap<>();
+
+    public void adjustAvailableSeats(Long tripId, int delta) {
+        seatDeltas.merge(tripId, delta, Integer::sum);
+    }
+
+    public void seatsChanged(Long tripId, List<Integer> seatNumbers, boolean available) {
+        Map<Integer, Boolean> updates = seatUpdates.computeIfAbsent(tripId, id -> new HashMap<>());
+        for (Integer seatNumber : seatNumbers) {
+            updates.put(seatNumber, available);
+        }
+    }
+
+    Map<Long, Integer> getSeatDeltas() {
+        return seatDeltas;
+    }
+
+    Map<Long, Map<Integer, Boolean>> getSeatUpdates() {
+        return seatUpdates;
+    }
+}
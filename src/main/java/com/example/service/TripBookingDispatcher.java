@@ -0,0 +1,223 @@
+package com.example.service;
+
+import com.example.exception.*;
+import com.example.repository.TripRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Single writer per trip for booking mutations. Trips are sharded by id
+ * over a fixed set of worker threads; each worker drains its mailbox in
+ * micro-batches and applies a whole batch in one transaction, so a hot
+ * trip pays one commit and one counter update per batch instead of one
+ * per booking.
+ */
+@Service
+public class TripBookingDispatcher {
+    private final TransactionTemplate transactionTemplate;
+    private final TripRepository tripRepository;
+    private final WebSocketService webSocketService;
+    private final TimetableIndex timetableIndex;
+    private final int batchSize;
+    private final long timeoutMillis;
+    private final List<Shard> shards = new ArrayList<>();
+
+    public TripBookingDispatcher(TransactionTemplate transactionTemplate,
+                                 TripRepository tripRepository,
+                                 WebSocketService webSocketService,
+                                 TimetableIndex timetableIndex,
+                                 @Value("${app.booking.workers:4}") int workers,
+                                 @Value("${app.booking.batch-size:64}") int batchSize,
+                                 @Value("${app.booking.mailbox-capacity:10000}") int mailboxCapacity,
+                                 @Value("${app.booking.timeout-ms:30000}") long timeoutMillis) {
+        this.transactionTemplate = transactionTemplate;
+        this.tripRepository = tripRepository;
+        this.webSocketService = webSocketService;
+        this.timetableIndex = timetableIndex;
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeoutMillis;
+        for (int i = 0; i < workers; i++) {
+            shards.add(new Shard(i, mailboxCapacity));
+        }
+    }
+
+    /**
+     * Run a mutation on the trip's worker and wait for its result.
+     * Mutations may only reject (throw) before they write, or after undoing
+     * their own writes, because the rest of the batch still commits.
+     * A ServiceBusyException means the mutation never ran; once the worker
+     * has picked it up, the caller waits for the outcome however long the
+     * transaction takes.
+     */
+    public <T> T execute(Long tripId, Function<TripBatch, T> mutation) {
+        Command<T> command = new Command<>(mutation);
+        Shard shard = shards.get((int) Math.floorMod(tripId, (long) shards.size()));
+        if (!shard.mailbox.offer(command)) {
+            throw new ServiceBusyException("Too many bookings in progress for this trip. Please try again");
+        }
+        try {
+            return command.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            if (command.cancel()) {
+                throw new ServiceBusyException("Booking is taking too long. Please try again");
+            }
+            return awaitOutcome(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (command.cancel()) {
+                throw new ServiceBusyException("Booking was interrupted");
+            }
+            return awaitOutcome(command);
+        }
+    }
+
+    // The worker already started the command, so its result is the truth
+    private static <T> T awaitOutcome(Command<T> command) {
+        try {
+            return command.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shards.forEach(shard -> shard.worker.shutdownNow());
+    }
+
+    private void process(List<Command<?>> commands) {
+        commands.removeIf(command -> command.future.isDone());
+        if (commands.isEmpty()) {
+            return;
+        }
+        List<Runnable> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> applyBatch(commands));
+        } catch (RuntimeException e) {
+            if (commands.size() == 1) {
+                commands.get(0).future.completeExceptionally(e);
+                return;
+            }
+            // Isolate the failing mutation by replaying one at a time
+            for (Command<?> command : commands) {
+                process(new ArrayList<>(List.of(command)));
+            }
+            return;
+        }
+        outcomes.forEach(Runnable::run);
+    }
+
+    private List<Runnable> applyBatch(List<Command<?>> commands) {
+        TripBatch batch = new TripBatch();
+        List<Runnable> outcomes = new ArrayList<>();
+        for (Command<?> command : commands) {
+            if (!command.start()) {
+                continue; // the caller gave up before the worker got to it
+            }
+            try {
+                outcomes.add(command.apply(batch));
+            } catch (RuntimeException e) {
+                if (!isRejection(e)) {
+                    throw e;
+                }
+                outcomes.add(() -> command.future.completeExceptionally(e));
+            }
+        }
+
+        batch.getSeatDeltas().forEach((tripId, delta) -> {
+            if (delta != 0) {
+                tripRepository.adjustAvailableSeats(tripId, delta);
+                timetableIndex.adjustSeats(tripId, delta);
+            }
+        });
+        TransactionHooks.afterCommit(() -> batch.getSeatUpdates().forEach(webSocketService::sendSeatUpdate));
+        return outcomes;
+    }
+
+    private static boolean isRejection(RuntimeException e) {
+        return e instanceof ConflictException
+                || e instanceof BadRequestException
+                || e instanceof ResourceNotFoundException
+                || e instanceof PermissionException;
+    }
+
+    private static class Command<T> {
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int CANCELLED = 2;
+
+        private final Function<TripBatch, T> mutation;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Command(Function<TripBatch, T> mutation) {
+            this.mutation = mutation;
+        }
+
+        // Claimed by the worker; stays claimed when a failed batch is replayed
+        boolean start() {
+            return state.compareAndSet(QUEUED, STARTED) || state.get() == STARTED;
+        }
+
+        // Withdrawn by the caller, only possible before the worker claimed it
+        boolean cancel() {
+            if (state.compareAndSet(QUEUED, CANCELLED)) {
+                future.cancel(false);
+                return true;
+            }
+            return false;
+        }
+
+        // Apply inside the batch transaction, complete the caller once it commits
+        Runnable apply(TripBatch batch) {
+            T result = mutation.apply(batch);
+            return () -> future.complete(result);
+        }
+    }
+
+    private class Shard {
+        private final BlockingQueue<Command<?>> mailbox;
+        private final ExecutorService worker;
+
+        Shard(int index, int capacity) {
+            this.mailbox = new LinkedBlockingQueue<>(capacity);
+            this.worker = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "trip-booking-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+            worker.submit(this::run);
+        }
+
+        private void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    List<Command<?>> commands = new ArrayList<>(batchSize);
+                    commands.add(mailbox.take());
+                    mailbox.drainTo(commands, batchSize - 1);
+                    process(commands);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    System.err.println("Trip booking worker error: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.service;
+
+/**
+ * Publishes trip status changes to the listeners of every node, so each
+ * node's in-memory indexes drop or move the trip, whichever node made the
+ * change. Local or Redis pub/sub depending on app.trip-events.relay.
+ */
+public interface TripEventRelay {
+
+    // Call once the change has committed
+    void publish(TripStatusChangedEvent event);
+}
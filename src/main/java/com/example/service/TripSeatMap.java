@@ -0,0 +1,161 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact seat state for one trip. Seat {@code n} is bit {@code n - 1}.
+ * Committed bits mirror booking_seats, pending bits are claims whose
+ * transaction has not committed yet; both count as taken.
+ */
+public class TripSeatMap {
+    private final Long tripId;
+    private final int totalSeats;
+    private final boolean bookable;
+    private final long[] committed;
+    private final long[] pending;
+
+    public TripSeatMap(Long tripId, int totalSeats, boolean bookable, Collection<Integer> bookedSeats) {
+        this.tripId = tripId;
+        this.totalSeats = totalSeats;
+        this.bookable = bookable;
+        this.committed = new long[(totalSeats + 63) >>> 6];
+        this.pending = new long[committed.length];
+        for (Integer seat : bookedSeats) {
+            if (isInRange(seat)) {
+                set(committed, seat);
+            }
+        }
+    }
+
+    public Long getTripId() {
+        return tripId;
+    }
+
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    public boolean isBookable() {
+        return bookable;
+    }
+
+    public boolean isInRange(Integer seat) {
+        return seat != null && seat >= 1 && seat <= totalSeats;
+    }
+
+    public synchronized boolean isTaken(int seat) {
+        return isInRange(seat) && (get(committed, seat) || get(pending, seat));
+    }
+
+    public synchronized int getAvailableSeats() {
+        int taken = 0;
+        for (int i = 0; i < committed.length; i++) {
+            taken += Long.bitCount(committed[i] | pending[i]);
+        }
+        return totalSeats - taken;
+    }
+
+    /**
+     * Claim all seats or none. Returns the seats that are already taken,
+     * empty when the claim succeeded.
+     */
+    public synchronized List<Integer> tryClaim(Collection<Integer> seats) {
+        List<Integer> taken = new ArrayList<>();
+        for (Integer seat : seats) {
+            if (isTaken(seat)) {
+                taken.add(seat);
+            }
+        }
+        if (taken.isEmpty()) {
+            for (Integer seat : seats) {
+                set(pending, seat);
+            }
+        }
+        return taken;
+    }
+
+    // Pending claim committed to booking_seats
+    public synchronized void commit(Collection<Integer> seats) {
+        for (Integer seat : seats) {
+            clear(pending, seat);
+            set(committed, seat);
+        }
+    }
+
+    // Pending claim rolled back
+    public synchronized void abandon(Collection<Integer> seats) {
+        for (Integer seat : seats) {
+            clear(pending, seat);
+        }
+    }
+
+    public synchronized void release(Collection<Integer> seats) {
+        for (Integer seat : seats) {
+            if (isInRange(seat)) {
+                clear(committed, seat);
+            }
+        }
+    }
+
+    /**
+     * Compare committed state against the seats booked in the database.
+     * Returns the seat numbers that disagree.
+     */
+    public synchronized List<Integer> diff(Collection<Integer> bookedSeats) {
+        long[] expected = new long[committed.length];
+        for (Integer seat : bookedSeats) {
+            if (isInRange(seat)) {
+                set(expected, seat);
+            }
+        }
+        List<Integer> mismatched = new ArrayList<>();
+        for (int i = 0; i < committed.length; i++) {
+            long word = committed[i] ^ expected[i];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                mismatched.add((i << 6) + bit + 1);
+                word &= word - 1;
+            }
+        }
+        return mismatched;
+    }
+
+    // Replace committed state with the database view, keeping in-flight claims
+    public synchronized void resync(Collection<Integer> bookedSeats) {
+        Arrays.fill(committed, 0L);
+        for (Integer seat : bookedSeats) {
+            if (isInRange(seat)) {
+                set(committed, seat);
+            }
+        }
+    }
+
+    // seatNumber -> isAvailable
+    public synchronized Map<Integer, Boolean> toSeatStatus() {
+        Map<Integer, Boolean> seatStatus = new LinkedHashMap<>(totalSeats * 4 / 3 + 1);
+        for (int seat = 1; seat <= totalSeats; seat++) {
+            seatStatus.put(seat, !isTaken(seat));
+        }
+        return seatStatus;
+    }
+
+    private static boolean get(long[] words, int seat) {
+        int bit = seat - 1;
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static void set(long[] words, int seat) {
+        int bit = seat - 1;
+        words[bit >>> 6] |= 1L << bit;
+    }
+
+    private static void clear(long[] words, int seat) {
+        int bit = seat - 1;
+        words[bit >>> 6] &= ~(1L << bit);
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.service;
 
 import com.example.dto.TripEnttiesDTO;
+import com.example.dto.requests.ScheduleSlotRequest;
 import com.example.dto.requests.TripRequest;
+import com.example.dto.responses.ScheduleConflictResponse;
+import com.example.dto.responses.ScheduleValidationResponse;
+import com.example.dto.responses.TimetableEntryResponse;
 import com.example.dto.responses.TripResponse;
+import com.example.dto.responses.TripSearchPage;
 import com.example.exception.ConflictException;
 import com.example.exception.InvalidInputException;
 import com.example.exception.ResourceNotFoundException;
@@ -13,26 +18,37 @@ import com.example.repository.BusParkRepository;
 import com.example.repository.BusRepository;
 import com.example.repository.RouteRepository;
 import com.example.repository.TripRepository;
+import com.example.repository.TripSearchCriteria;
+import com.example.repository.TripSearchRow;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class TripService {
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     private final TripRepository tripRepository;
     private final BusRepository busRepository;
     private final RouteRepository routeRepository;
     private final BusParkRepository busParkRepository;
     private final CurrentUserService currentUserService;
     private final TripMapper tripMapper;
+    private final SeatInventoryService seatInventoryService;
+    private final TimetableIndex timetableIndex;
+    private final BusScheduleIndex busScheduleIndex;
+    private final TripStatusScheduler tripStatusScheduler;
+    private final TripEventRelay tripEventRelay;
+    private final RouteStatsService routeStatsService;
 
     public TripResponse createTrip(TripRequest tripDTO) {
         // Validate user access
@@ -54,7 +70,7 @@ public class TripService {
         validateOperatorAccess(currentUser, entities.getBus());
         validateTripTimes(tripDTO.getDepartureTime(), tripDTO.getArrivalTime());
         // Check for scheduling conflicts
-        checkBusAvailability(bus, tripDTO.getDepartureTime(), tripDTO.getArrivalTime());
+        checkBusAvailability(bus, tripDTO.getDepartureTime(), tripDTO.getArrivalTime(), null);
 
         // Create trip
         Trip trip = new Trip();
@@ -71,38 +87,133 @@ public class TripService {
         trip.setCreatedAt(LocalDateTime.now());
 
         Trip savedTrip = tripRepository.save(trip);
+        timetableIndex.upsert(savedTrip);
+        busScheduleIndex.upsert(savedTrip);
+        tripStatusScheduler.track(savedTrip);
+        routeStatsService.tripsAdded(savedTrip.getRoute().getId(), List.of(savedTrip.getId()), bus.getTotalSeats());
         return tripMapper.toTripResponse(savedTrip);
     }
 
-    private void checkBusAvailability(Bus bus, LocalDateTime start, LocalDateTime end) {
-        // Find trips that might conflict
-        List<Trip> busTrips = tripRepository.findByBus(bus);
+    // The in-memory index answers most conflicts; the database catches trips written elsewhere
+    private void checkBusAvailability(Bus bus, LocalDateTime start, LocalDateTime end, Long excludeTripId) {
+        List<BusScheduleIndex.Slot> conflicts = busScheduleIndex.findConflicts(bus.getId(), start, end, excludeTripId);
+        if (!conflicts.isEmpty()) {
+            throw new ConflictException("Bus is already scheduled during this time period (trip "
+                    + conflicts.get(0).tripId() + ")");
+        }
+        if (tripRepository.existsOverlapping(bus.getId(), start, end, excludeTripId != null ? excludeTripId : 0L)) {
+            throw new ConflictException("Bus is already scheduled during this time period");
+        }
+    }
 
-        for (Trip existingTrip : busTrips) {
-            // Only check active trips with status SCHEDULED or IN_PROGRESS
-            if (!existingTrip.isActive() ||
-                    !(existingTrip.getStatus().equals(TripStatus.SCHEDULED) ||
-                            existingTrip.getStatus().equals(TripStatus.IN_PROGRESS))) {
+    /**
+     * Check a whole batch of slots, e.g. next week's schedule, against the
+     * trips already on each bus and against each other. Reports every
+     * conflict instead of stopping at the first.
+     */
+    @Transactional(readOnly = true)
+    public ScheduleValidationResponse validateSchedule(List<ScheduleSlotRequest> slots) {
+        User currentUser = currentUserService.getCurrentUser();
+        if (currentUser.getRole() == Role.OPERATOR) {
+            Set<Long> busIds = slots.stream().map(ScheduleSlotRequest::getBusId).collect(Collectors.toSet());
+            List<Bus> buses = busRepository.findAllById(busIds);
+            if (buses.size() != busIds.size()) {
+                throw new ResourceNotFoundException("Bus not found");
+            }
+            buses.forEach(bus -> validateOperatorAccess(currentUser, bus));
+        }
+
+        List<ScheduleConflictResponse> conflicts = new ArrayList<>();
+        Map<Long, List<Integer>> validByBus = new HashMap<>();
+        for (int i = 0; i < slots.size(); i++) {
+            ScheduleSlotRequest slot = slots.get(i);
+            if (!slot.getDepartureTime().isBefore(slot.getArrivalTime())) {
+                conflicts.add(conflict(i, slot, "INVALID_TIMES", null, null));
                 continue;
             }
+            for (BusScheduleIndex.Slot existing : busScheduleIndex.findConflicts(slot.getBusId(),
+                    slot.getDepartureTime(), slot.getArrivalTime(), slot.getTripId())) {
+                conflicts.add(conflict(i, slot, "OVERLAPS_TRIP", existing.tripId(), null));
+            }
+            validByBus.computeIfAbsent(slot.getBusId(), id -> new ArrayList<>()).add(i);
+        }
 
-            LocalDateTime existingStart = existingTrip.getDepartureTime();
-            LocalDateTime existingEnd = existingTrip.getArrivalTime();
+        // Sweep each bus's slots by start time, keeping the ones still running
+        validByBus.values().forEach(indexes -> {
+            indexes.sort(Comparator.comparing((Integer i) -> slots.get(i).getDepartureTime()));
+            List<Integer> running = new ArrayList<>();
+            for (Integer i : indexes) {
+                ScheduleSlotRequest slot = slots.get(i);
+                running.removeIf(j -> !slots.get(j).getArrivalTime().isAfter(slot.getDepartureTime()));
+                for (Integer j : running) {
+                    conflicts.add(conflict(i, slot, "OVERLAPS_REQUEST", null, j));
+                }
+                running.add(i);
+            }
+        });
 
-            // Check for overlap
-            if ((start.isBefore(existingEnd) && end.isAfter(existingStart))) {
-                throw new ConflictException("Bus is already scheduled during this time period");
+        conflicts.sort(Comparator.comparingInt(ScheduleConflictResponse::getIndex));
+        return new ScheduleValidationResponse(conflicts.isEmpty(), slots.size(), conflicts);
+    }
+
+    private static ScheduleConflictResponse conflict(int index, ScheduleSlotRequest slot, String reason,
+                                                     Long conflictingTripId, Integer conflictingIndex) {
+        return new ScheduleConflictResponse(index, slot.getBusId(), slot.getDepartureTime(), slot.getArrivalTime(),
+                reason, conflictingTripId, conflictingIndex);
+    }
+
+    /**
+     * One page of bookable trips for a day, ordered by departure. Pass the
+     * returned cursor back to get the next page.
+     */
+    @Transactional(readOnly = true)
+    public TripSearchPage searchTrips(String origin, String destination, LocalDate date,
+                                      Double minPrice, Double maxPrice, String busType, Integer minSeats,
+                                      String cursor, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_PAGE_SIZE) {
+            throw new InvalidInputException("limit must be between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        LocalDateTime afterTime = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterTime = LocalDateTime.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new InvalidInputException("Invalid cursor");
             }
         }
-    }
 
-    public List<TripResponse> searchTrips(String origin, String destination, LocalDate date) {
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.plusDays(1).atStartOfDay().minusSeconds(1);
+        TripSearchCriteria criteria = new TripSearchCriteria(origin, destination,
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(),
+                minPrice, maxPrice, busType, minSeats, afterTime, afterId);
+        // One extra row tells whether there is a next page
+        List<TripSearchRow> rows = tripRepository.searchTrips(criteria, limit + 1);
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            TripSearchRow last = rows.get(limit - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.departureTime() + "|" + last.id()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new TripSearchPage(rows.stream().map(tripMapper::toTripResponse).toList(), nextCursor);
+    }
 
-        List<Trip> trips = tripRepository.findTripsForSearch(origin, destination, startOfDay, endOfDay);
+    // Served from the in-memory timetable, no database round trip
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<TimetableEntryResponse> getTimetable(String origin, String destination, LocalDate date) {
+        return timetableIndex.find(origin, destination, date).stream()
+                .map(entry -> new TimetableEntryResponse(entry.tripId(),
+                        TimetableIndex.toLocalDateTime(entry.departure()),
+                        TimetableIndex.toLocalDateTime(entry.arrival()),
+                        entry.price(), entry.availableSeats()))
+                .toList();
+    }
 
-        return tripMapper.toTripResponseList(trips);
+    public int rebuildTimetable() {
+        return timetableIndex.rebuild();
     }
 
     public TripResponse getTripById(Long id) {
@@ -166,7 +277,7 @@ public class TripService {
         if (!trip.getBus().getId().equals(entities.getBus().getId()) ||
                 !trip.getDepartureTime().equals(tripDTO.getDepartureTime()) ||
                 !trip.getArrivalTime().equals(tripDTO.getArrivalTime())) {
-            checkBusAvailability(entities.getBus(), tripDTO.getDepartureTime(), tripDTO.getArrivalTime());
+            checkBusAvailability(entities.getBus(), tripDTO.getDepartureTime(), tripDTO.getArrivalTime(), trip.getId());
         }
 
         // Update trip
@@ -179,6 +290,10 @@ public class TripService {
         trip.setAmount(entities.getRoute().getPrice());
 
         Trip updatedTrip = tripRepository.save(trip);
+        seatInventoryService.evict(updatedTrip.getId());
+        timetableIndex.upsert(updatedTrip);
+        busScheduleIndex.upsert(updatedTrip);
+        tripStatusScheduler.track(updatedTrip);
         return tripMapper.toTripResponse(updatedTrip);
     }
 
@@ -200,39 +315,18 @@ public class TripService {
             throw new InvalidInputException("Cannot cancel a trip that has already departed");
         }
 
+        TripStatus previousStatus = trip.getStatus();
         trip.setStatus(TripStatus.CANCELLED);
         Trip cancelledTrip = tripRepository.save(trip);
+        TripStatusChangedEvent event = new TripStatusChangedEvent(cancelledTrip.getId(), previousStatus,
+                TripStatus.CANCELLED, LocalDateTime.now());
+        TransactionHooks.afterCommit(() -> tripEventRelay.publish(event));
 
         // TODO: Notify booked passengers about cancellation
 
         return tripMapper.toTripResponse(cancelledTrip);
     }
 
-    @Scheduled(fixedRate = 300000) // Every 5 minutes
-    public void updateTripStatuses() {
-        LocalDateTime now = LocalDateTime.now();
-
-        // Update SCHEDULED trips that have departed
-        List<Trip> departedTrips = tripRepository.findByStatusAndDepartureTimeBefore(TripStatus.SCHEDULED, now);
-        for (Trip trip : departedTrips) {
-            if (trip.getArrivalTime().isAfter(now)) {
-                trip.setStatus(TripStatus.IN_PROGRESS);
-            } else {
-                trip.setStatus(TripStatus.COMPLETED);
-            }
-            tripRepository.save(trip);
-        }
-
-        // Update IN_PROGRESS trips that have arrived
-        List<Trip> inProgressTrips = tripRepository.findByStatusAndDepartureTimeBefore(TripStatus.IN_PROGRESS, now);
-        for (Trip trip : inProgressTrips) {
-            if (trip.getArrivalTime().isBefore(now)) {
-                trip.setStatus(TripStatus.COMPLETED);
-                tripRepository.save(trip);
-            }
-        }
-    }
-
     // Helper method to load trips by route, bus, and buspark
     private TripEnttiesDTO loadTripEntities(TripRequest tripDTO) {
         Bus bus = busRepository.findById(tripDTO.getBusId())
@@ -0,0 +1,22 @@
+package com.example.service;
+
+import com.example.model.TripStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published after the status change has committed, on every node. Remote
+ * copies are relayed from the node that made the change, which has already
+ * told STOMP subscribers.
+ */
+public record TripStatusChangedEvent(Long tripId, TripStatus previousStatus, TripStatus status,
+                                     LocalDateTime changedAt, boolean remote) {
+
+    public TripStatusChangedEvent(Long tripId, TripStatus previousStatus, TripStatus status, LocalDateTime changedAt) {
+        this(tripId, previousStatus, status, changedAt, false);
+    }
+
+    TripStatusChangedEvent asRemote() {
+        return new TripStatusChangedEvent(tripId, previousStatus, status, changedAt, true);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.service;
+
+import com.example.model.Trip;
+import com.example.model.TripStatus;
+import com.example.repository.TripRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Moves trips SCHEDULED -> IN_PROGRESS -> COMPLETED within a second or so
+ * of their departure and arrival. Upcoming instants sit in a sorted set;
+ * when one falls due the transitions run as bulk UPDATEs, and every trip
+ * that changed gets a TripStatusChangedEvent after commit. Only the node
+ * whose UPDATE won sees the change, so the event goes through the
+ * TripEventRelay to every node's indexes. The set is refilled from the
+ * database every few minutes, which also picks up trips created on other
+ * nodes.
+ */
+@Service
+public class TripStatusScheduler {
+    private static final long HORIZON_MINUTES = 10; // twice the reload period
+
+    private final TripRepository tripRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TripEventRelay tripEventRelay;
+    private final ConcurrentSkipListSet<LocalDateTime> dueTimes = new ConcurrentSkipListSet<>();
+
+    public TripStatusScheduler(TripRepository tripRepository,
+                               TransactionTemplate transactionTemplate,
+                               TripEventRelay tripEventRelay) {
+        this.tripRepository = tripRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.tripEventRelay = tripEventRelay;
+    }
+
+    // Watch a created or moved trip once its transaction commits
+    public void track(Trip trip) {
+        LocalDateTime departure = trip.getDepartureTime();
+        LocalDateTime arrival = trip.getArrivalTime();
+        TransactionHooks.afterCommit(() -> {
+            dueTimes.add(departure);
+            dueTimes.add(arrival);
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+    }
+
+    @Scheduled(fixedRate = 300000, initialDelay = 300000) // Every 5 minutes
+    public void reload() {
+        try {
+            LocalDateTime until = LocalDateTime.now().plusMinutes(HORIZON_MINUTES);
+            dueTimes.addAll(tripRepository.findDeparturesBefore(until));
+            dueTimes.addAll(tripRepository.findArrivalsBefore(until));
+            // Also sweeps anything another node scheduled and this one never saw
+            transition(LocalDateTime.now());
+        } catch (Exception e) {
+            System.err.println("Error loading trip status schedule: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void tick() {
+        LocalDateTime now = LocalDateTime.now();
+        boolean due = false;
+        while (!dueTimes.isEmpty() && !dueTimes.first().isAfter(now)) {
+            dueTimes.pollFirst();
+            due = true;
+        }
+        if (due) {
+            try {
+                transition(now);
+            } catch (Exception e) {
+                System.err.println("Error updating trip statuses: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Apply every transition that is due at the given time. Returns the
+     * number of trips that changed.
+     */
+    public int transition(LocalDateTime now) {
+        List<TripStatusChangedEvent> changes = transactionTemplate.execute(status -> {
+            List<TripStatusChangedEvent> changed = new ArrayList<>();
+            for (Long tripId : tripRepository.completeArrivedTrips(TripStatus.IN_PROGRESS.name(), now)) {
+                changed.add(new TripStatusChangedEvent(tripId, TripStatus.IN_PROGRESS, TripStatus.COMPLETED, now));
+            }
+            for (Long tripId : tripRepository.completeArrivedTrips(TripStatus.SCHEDULED.name(), now)) {
+                changed.add(new TripStatusChangedEvent(tripId, TripStatus.SCHEDULED, TripStatus.COMPLETED, now));
+            }
+            for (Long tripId : tripRepository.startDepartedTrips(now)) {
+                changed.add(new TripStatusChangedEvent(tripId, TripStatus.SCHEDULED, TripStatus.IN_PROGRESS, now));
+            }
+            return changed;
+        });
+        if (changes == null || changes.isEmpty()) {
+            return 0;
+        }
+        for (TripStatusChangedEvent change : changes) {
+            try {
+                tripEventRelay.publish(change);
+            } catch (Exception e) {
+                System.err.println("Error publishing status change for trip " + change.tripId() + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Updated status of " + changes.size() + " trips");
+        return changes.size();
+    }
+}
@@ -15,7 +15,6 @@ import com.example.dto.requests.CreateAdminRequest;
 import com.example.model.Role;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -23,9 +22,10 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final CurrentUserService currentUserService;
     private final UserMapper userMapper;
+    private final PrincipalCache principalCache;
 
     @Transactional(readOnly = true)
     public ProfileResponse getProfile(String email) {
@@ -40,17 +40,19 @@ public class UserService {
         user.setFullName(request.getFullName());
         user.setPhone(request.getPhone());
         userRepository.save(user);
+        principalCache.invalidate(email);
         return userMapper.toProfileResponse(user);
     }
 
     public void changePassword(String email, ChangePasswordRequest request) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getOldPassword(), user.getPassword())) {
             throw new CredentialsException("Old password is incorrect");
         }
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        user.setPassword(passwordHashingService.hash(request.getNewPassword()));
         userRepository.save(user);
+        principalCache.invalidate(email);
     }
 
     private User createUserFromRequest(String fullName, String email,
@@ -62,7 +64,7 @@ public class UserService {
         User user = new User();
         user.setFullName(fullName);
         user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHashingService.hash(password));
         user.setPhone(phone);
         user.setRole(role);
         user.setCreatedAt(java.time.LocalDateTime.now());
@@ -0,0 +1,156 @@
+package com.example.service;
+
+import com.example.dto.responses.WaitingRoomStatus;
+import com.example.exception.AdmissionRequiredException;
+import com.example.exception.BadRequestException;
+import com.example.exception.ResourceNotFoundException;
+import com.example.service.WaitingRoomStore.Ticket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Virtual waiting room for high-demand trips. While a room is open for a
+ * trip, buyers join a FIFO queue and only admitted tickets may load the
+ * seat map or book; tickets are admitted at a fixed rate per second and
+ * told over STOMP when it is their turn. Queues live in the
+ * {@link WaitingRoomStore}, so with the Redis store a ticket issued by one
+ * instance is honoured by all of them.
+ */
+@Service
+public class WaitingRoomService {
+    private final WaitingRoomStore store;
+    private final WebSocketService webSocketService;
+    private final MeterRegistry meterRegistry;
+    private final int defaultAdmitPerSecond;
+    private final Duration admissionWindow;
+    private final Map<Long, RoomMeters> meters = new ConcurrentHashMap<>();
+
+    public WaitingRoomService(WaitingRoomStore store,
+                              WebSocketService webSocketService,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.waiting-room.admit-per-second:50}") int defaultAdmitPerSecond,
+                              @Value("${app.waiting-room.admission-minutes:10}") long admissionMinutes) {
+        this.store = store;
+        this.webSocketService = webSocketService;
+        this.meterRegistry = meterRegistry;
+        this.defaultAdmitPerSecond = defaultAdmitPerSecond;
+        this.admissionWindow = Duration.ofMinutes(admissionMinutes);
+    }
+
+    public void open(Long tripId, Integer admitPerSecond) {
+        int rate = admitPerSecond != null ? admitPerSecond : defaultAdmitPerSecond;
+        if (rate < 1) {
+            throw new BadRequestException("Admit rate must be at least 1 per second");
+        }
+        store.open(tripId, rate);
+    }
+
+    public void close(Long tripId) {
+        store.close(tripId);
+        unregisterMetrics(tripId);
+    }
+
+    public boolean isOpen(Long tripId) {
+        return store.isOpen(tripId);
+    }
+
+    // One ticket per user and trip, joining again returns the same place in line
+    public WaitingRoomStatus join(Long tripId, Long userId) {
+        Ticket ticket = store.join(tripId, userId);
+        if (ticket == null) {
+            throw new BadRequestException("No waiting room is open for this trip");
+        }
+        return status(tripId, ticket);
+    }
+
+    // Tickets are only visible to the user they were issued to
+    public WaitingRoomStatus getStatus(Long tripId, String ticketId, Long userId) {
+        Ticket ticket = store.find(tripId, ticketId);
+        if (ticket == null || !ticket.userId().equals(userId)) {
+            throw new ResourceNotFoundException("Waiting room ticket not found");
+        }
+        return status(tripId, ticket);
+    }
+
+    // Gate for booking endpoints, a no-op for trips without an open room
+    public void checkAdmission(Long tripId, String ticketId, Long userId) {
+        if (!store.isOpen(tripId)) {
+            return;
+        }
+        Ticket ticket = ticketId != null ? store.find(tripId, ticketId) : null;
+        if (ticket == null || !ticket.userId().equals(userId)) {
+            throw new AdmissionRequiredException("This trip has a waiting room. Join the queue to continue");
+        }
+        Long expiresAt = ticket.admissionExpiresAt();
+        if (expiresAt == null) {
+            throw new AdmissionRequiredException("Not your turn yet. Position " + position(tripId, ticket));
+        }
+        if (expiresAt <= System.currentTimeMillis()) {
+            throw new AdmissionRequiredException("Your admission has expired. Join the queue again");
+        }
+    }
+
+    // Every instance runs this; the store lets one of them admit per second
+    @Scheduled(fixedRate = 1000)
+    public void admit() {
+        Set<Long> openTrips = store.openTrips();
+        meters.keySet().stream().filter(tripId -> !openTrips.contains(tripId)).toList()
+                .forEach(this::unregisterMetrics);
+        for (Long tripId : openTrips) {
+            RoomMeters room = meters.computeIfAbsent(tripId, this::registerMetrics);
+            var admitted = store.admit(tripId, admissionWindow.toMillis());
+            room.admitted.increment(admitted.size());
+            admitted.forEach(ticket -> webSocketService.sendWaitingRoomUpdate(status(tripId, ticket)));
+        }
+    }
+
+    private long position(Long tripId, Ticket ticket) {
+        return Math.max(1, ticket.sequence() - store.admittedSequence(tripId));
+    }
+
+    private WaitingRoomStatus status(Long tripId, Ticket ticket) {
+        Long expiresAt = ticket.admissionExpiresAt();
+        if (expiresAt == null) {
+            return new WaitingRoomStatus(tripId, ticket.id(), position(tripId, ticket), false, null);
+        }
+        LocalDateTime admissionExpiresAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault());
+        return new WaitingRoomStatus(tripId, ticket.id(), 0, true, admissionExpiresAt);
+    }
+
+    private record RoomMeters(Gauge depth, Counter admitted) {
+    }
+
+    private RoomMeters registerMetrics(Long tripId) {
+        Tags tags = Tags.of("trip", tripId.toString());
+        Gauge depth = Gauge.builder("smartbus.waiting_room.depth", () -> store.depth(tripId))
+                .description("Buyers waiting for admission")
+                .tags(tags)
+                .register(meterRegistry);
+        Counter admitted = Counter.builder("smartbus.waiting_room.admitted")
+                .description("Buyers admitted from the waiting room")
+                .tags(tags)
+                .register(meterRegistry);
+        return new RoomMeters(depth, admitted);
+    }
+
+    private void unregisterMetrics(Long tripId) {
+        RoomMeters room = meters.remove(tripId);
+        if (room != null) {
+            meterRegistry.remove(room.depth);
+            meterRegistry.remove(room.admitted);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.service;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Waiting room state shared by every SmartBus instance: which trips have an
+ * open room, each room's FIFO queue and the tickets it has admitted. Every
+ * operation is atomic, so a room behaves the same whichever node serves
+ * the request.
+ */
+public interface WaitingRoomStore {
+
+    // Admission expiry is epoch millis, null while the ticket is still queued
+    record Ticket(String id, Long userId, long sequence, Long admissionExpiresAt) {
+    }
+
+    // Opens the room, or changes the admit rate of an open one
+    void open(Long tripId, int admitPerSecond);
+
+    void close(Long tripId);
+
+    boolean isOpen(Long tripId);
+
+    Set<Long> openTrips();
+
+    /**
+     * The user's ticket for the trip, queued at the back if they have none
+     * or their admission ran out. Null when no room is open.
+     */
+    Ticket join(Long tripId, Long userId);
+
+    Ticket find(Long tripId, String ticketId);
+
+    // Sequence of the last admitted ticket, for queue positions
+    long admittedSequence(Long tripId);
+
+    long depth(Long tripId);
+
+    /**
+     * Admit the next tickets in line, at most the room's rate per second
+     * across all instances. Returns the tickets admitted by this call.
+     */
+    List<Ticket> admit(Long tripId, long admissionMillis);
+}
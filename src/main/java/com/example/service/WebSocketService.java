@@ -2,31 +2,91 @@ package com.example.service;
 
 import com.example.dto.responses.BookingUpdateMessage;
 import com.example.dto.responses.SeatUpdateMessage;
+import com.example.dto.responses.TripStatusMessage;
+import com.example.dto.responses.WaitingRoomStatus;
 import com.example.model.BookingStatus;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
 public class WebSocketService {
-    private final SimpMessagingTemplate messagingTemplate;
+    private final StompFanout stompFanout;
+    private final SeatDeltaLogService seatDeltaLogService;
+    // Seat changes waiting for the next flush, latest state per seat
+    private final Map<Long, Map<Integer, Boolean>> pendingSeatUpdates = new ConcurrentHashMap<>();
 
-    // Send seat updates to all clients viewing a trip
+    // Queue seat updates for all clients viewing a trip; they go out with the next flush
     public void sendSeatUpdate(Long tripId, Map<Integer, Boolean> seatUpdates) {
-        messagingTemplate.convertAndSend(
-                "/topic/trips/" + tripId + "/seats",
-                new SeatUpdateMessage(tripId, seatUpdates)
-        );
+        pendingSeatUpdates.compute(tripId, (id, pending) -> {
+            Map<Integer, Boolean> merged = pending != null ? pending : new HashMap<>();
+            merged.putAll(seatUpdates);
+            return merged;
+        });
+    }
+
+    // Sequence of the last seat delta sent for a trip
+    public long getSeatSequence(Long tripId) {
+        return seatDeltaLogService.getLastSequence(tripId);
+    }
+
+    // Seat deltas sent after the given sequence, null if the client has to reload the seat map
+    public List<SeatUpdateMessage> getSeatUpdatesSince(Long tripId, long sinceSequence) {
+        return seatDeltaLogService.since(tripId, sinceSequence);
+    }
+
+    /**
+     * Send one delta per trip with everything that changed since the last
+     * flush. Sequence numbers increase by one per delta so clients can spot
+     * a gap and reload the seat map.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.seat-flush-ms:75}")
+    public void flushSeatUpdates() {
+        for (Long tripId : pendingSeatUpdates.keySet()) {
+            Map<Integer, Boolean> seatUpdates = pendingSeatUpdates.remove(tripId);
+            if (seatUpdates == null || seatUpdates.isEmpty()) {
+                continue;
+            }
+            try {
+                stompFanout.sendSeatUpdate(tripId, seatUpdates);
+            } catch (Exception e) {
+                System.err.println("Error sending seat update for trip " + tripId + ": " + e.getMessage());
+            }
+        }
     }
 
     // Send booking status updates to specific user
     public void sendBookingUpdate(Long bookingId, BookingStatus status, String message) {
-        messagingTemplate.convertAndSend(
+        stompFanout.send(
                 "/topic/bookings/" + bookingId,
                 new BookingUpdateMessage(bookingId, status, message)
         );
     }
+
+    // Let clients watching a trip know it departed, arrived or was cancelled
+    @EventListener
+    public void onTripStatusChanged(TripStatusChangedEvent event) {
+        if (event.remote()) {
+            return; // the node that made the change already fanned it out
+        }
+        stompFanout.send(
+                "/topic/trips/" + event.tripId() + "/status",
+                new TripStatusMessage(event.tripId(), event.status(), event.changedAt())
+        );
+    }
+
+    // Tell a waiting buyer their turn has come
+    public void sendWaitingRoomUpdate(WaitingRoomStatus status) {
+        stompFanout.send(
+                "/topic/waiting-room/" + status.getTripId() + "/" + status.getTicket(),
+                status
+        );
+    }
 }
@@ -0,0 +1,79 @@
+package com.example.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling on the authentication filter path, per request.
+ * Run with (exec:exec so the forked benchmark JVM gets the test classpath):
+ *     mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *     "-Dexec.args=-cp %classpath com.example.config.JwtFilterBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private SecretKey key;
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        jwtUtil = newJwtUtil(10000);
+        uncachedJwtUtil = newJwtUtil(0);
+        token = jwtUtil.generateAccessToken("rider@example.com", "USER");
+    }
+
+    // What the filter did before: validateToken then getEmailFromToken, a new parser each time
+    @Benchmark
+    public String before() {
+        Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    // One verification with the prebuilt parser
+    @Benchmark
+    public String afterFirstSight() {
+        Claims claims = uncachedJwtUtil.parseClaims(token);
+        return claims.getSubject();
+    }
+
+    // Same token again, served from the verified-token cache
+    @Benchmark
+    public String afterRepeat() {
+        Claims claims = jwtUtil.parseClaims(token);
+        return claims.getSubject();
+    }
+
+    private static JwtUtil newJwtUtil(long cacheSize) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(util, "jwtExpirationMs", 3600000L);
+        ReflectionTestUtils.setField(util, "verifiedCacheSize", cacheSize);
+        util.init();
+        return util;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class StompSessionBuffersTest {
+
+    private static Message<byte[]> messageTo(String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    void shedsSeatDeltasWhileTheBrokerBufferIsBehindASlowSession() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StompSessionBuffers buffers = new StompSessionBuffers(meterRegistry, 64, 512, 60000);
+        BufferedSubProtocolWebSocketHandler handler = new BufferedSubProtocolWebSocketHandler(
+                mock(MessageChannel.class), mock(SubscribableChannel.class), buffers);
+        handler.setSendBufferSizeLimit(buffers.getHardLimitBytes());
+        handler.setSendTimeLimit(buffers.getSendTimeLimitMillis());
+
+        // A client that stops reading: the first write blocks until released
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession slow = mock(WebSocketSession.class);
+        when(slow.getId()).thenReturn("s1");
+        when(slow.isOpen()).thenReturn(true);
+        doAnswer(call -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(slow).sendMessage(any());
+
+        WebSocketSession session = handler.decorateSession(slow);
+        Thread writer = new Thread(() -> {
+            try {
+                session.sendMessage(new TextMessage("first"));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        session.sendMessage(new TextMessage("x".repeat(100 * 1024))); // queues behind the blocked write
+
+        Message<byte[]> seats = messageTo("s1", "/topic/trips/7/seats");
+        Message<byte[]> status = messageTo("s1", "/topic/trips/7/status");
+        assertNull(buffers.preSend(seats, mock(MessageChannel.class)));
+        assertSame(status, buffers.preSend(status, mock(MessageChannel.class)));
+        assertEquals(1, meterRegistry.get("smartbus.websocket.seat.dropped").counter().count());
+        assertTrue(meterRegistry.get("smartbus.websocket.buffered").gauge().value() >= 100 * 1024);
+
+        // Once the client catches up the buffer drains and deltas flow again
+        release.countDown();
+        writer.join(5000);
+        assertEquals(0, meterRegistry.get("smartbus.websocket.buffered").gauge().value());
+        assertSame(seats, buffers.preSend(seats, mock(MessageChannel.class)));
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-page latency of trip search as the trip table grows, keyset versus
+ * OFFSET paging, on the SQL Hibernate generates for TripSearchRepositoryImpl.
+ * Needs a scratch PostgreSQL database; it creates and fills its own
+ * bench_* tables there.
+ *
+ * Run with (exec:exec so the forked benchmark JVM gets the test classpath):
+ *     mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *     "-Dexec.args=-cp %classpath -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/smartbus_bench
+ *     -Dbench.jdbc.user=postgres -Dbench.jdbc.password=postgres com.example.repository.TripSearchBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TripSearchBenchmark {
+    private static final int PAGE_SIZE = 50;
+    private static final int ROUTES = 200;
+    private static final String SELECT = """
+            SELECT t.id, b.id, b.plate_number, b.bus_type, b.total_seats, t.available_seats,
+                   r.id, r.origin, r.destination, r.distance_km,
+                   dp.id, dp.name, ap.id, ap.name,
+                   t.departure_time, t.arrival_time, t.amount, t.status, t.active, t.created_at
+            FROM bench_trip t
+            JOIN bench_bus b ON b.id = t.bus_id
+            JOIN bench_route r ON r.id = t.route_id
+            LEFT JOIN bench_bus_park dp ON dp.id = t.departure_park_id
+            LEFT JOIN bench_bus_park ap ON ap.id = t.arrival_park_id
+            WHERE t.active = true AND t.status = 'SCHEDULED'
+              AND r.origin = ? AND r.destination = ?
+              AND t.departure_time >= ? AND t.departure_time < ?
+            """;
+
+    @Param({"100000", "1000000", "5000000"})
+    public int trips;
+
+    private Connection connection;
+    private PreparedStatement firstPage;
+    private PreparedStatement keysetPage;
+    private PreparedStatement offsetPage;
+    private Timestamp dayStart;
+    private Timestamp dayEnd;
+    private Timestamp cursorTime;
+    private long cursorId;
+    private int deepOffset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/smartbus_bench"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"));
+        seed();
+
+        // Busiest route-day, paged to near its end
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("""
+                     SELECT date_trunc('day', departure_time), count(*) FROM bench_trip
+                     WHERE route_id = 1 GROUP BY 1 ORDER BY 2 DESC LIMIT 1""")) {
+            rs.next();
+            dayStart = rs.getTimestamp(1);
+            dayEnd = new Timestamp(dayStart.getTime() + TimeUnit.DAYS.toMillis(1));
+            deepOffset = Math.max(0, rs.getInt(2) - PAGE_SIZE);
+        }
+        firstPage = connection.prepareStatement(SELECT + " ORDER BY t.departure_time, t.id LIMIT " + PAGE_SIZE);
+        keysetPage = connection.prepareStatement(SELECT
+                + " AND (t.departure_time > ? OR (t.departure_time = ? AND t.id > ?))"
+                + " ORDER BY t.departure_time, t.id LIMIT " + PAGE_SIZE);
+        offsetPage = connection.prepareStatement(SELECT + " ORDER BY t.departure_time, t.id LIMIT " + PAGE_SIZE + " OFFSET ?");
+
+        try (PreparedStatement cursor = connection.prepareStatement(SELECT
+                + " ORDER BY t.departure_time, t.id LIMIT 1 OFFSET " + Math.max(0, deepOffset - 1))) {
+            bindDay(cursor);
+            try (ResultSet rs = cursor.executeQuery()) {
+                rs.next();
+                cursorId = rs.getLong(1);
+                cursorTime = rs.getTimestamp(15);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void firstPage(Blackhole blackhole) throws SQLException {
+        bindDay(firstPage);
+        drain(firstPage, blackhole);
+    }
+
+    @Benchmark
+    public void deepPageKeyset(Blackhole blackhole) throws SQLException {
+        bindDay(keysetPage);
+        keysetPage.setTimestamp(5, cursorTime);
+        keysetPage.setTimestamp(6, cursorTime);
+        keysetPage.setLong(7, cursorId);
+        drain(keysetPage, blackhole);
+    }
+
+    @Benchmark
+    public void deepPageOffset(Blackhole blackhole) throws SQLException {
+        bindDay(offsetPage);
+        offsetPage.setInt(5, deepOffset);
+        drain(offsetPage, blackhole);
+    }
+
+    private void bindDay(PreparedStatement statement) throws SQLException {
+        statement.setString(1, "City1");
+        statement.setString(2, "City2");
+        statement.setTimestamp(3, dayStart);
+        statement.setTimestamp(4, dayEnd);
+    }
+
+    private static void drain(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong(1));
+                blackhole.consume(rs.getString(4));
+                blackhole.consume(rs.getTimestamp(15));
+            }
+        }
+    }
+
+    // Same shape and indexes as the JPA schema; trips spread over routes and a year
+    private void seed() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_trip, bench_route, bench_bus, bench_bus_park");
+            statement.execute("""
+                    CREATE TABLE bench_bus_park (id bigint PRIMARY KEY, name varchar(255));
+                    CREATE TABLE bench_bus (id bigint PRIMARY KEY, plate_number varchar(255), bus_type varchar(255), total_seats int);
+                    CREATE TABLE bench_route (id bigint PRIMARY KEY, origin varchar(255), destination varchar(255), distance_km float8);
+                    CREATE TABLE bench_trip (id bigint PRIMARY KEY, bus_id bigint, route_id bigint,
+                        departure_park_id bigint, arrival_park_id bigint, departure_time timestamp, arrival_time timestamp,
+                        amount float8, status varchar(255), available_seats int, active boolean, created_at timestamp)""");
+            statement.execute("INSERT INTO bench_bus_park SELECT g, 'Park ' || g FROM generate_series(1, 100) g");
+            statement.execute("INSERT INTO bench_bus SELECT g, 'BUS-' || g, (ARRAY['LUXURY','STANDARD','ECONOMY'])[1 + g % 3], 40 FROM generate_series(1, 2000) g");
+            statement.execute("INSERT INTO bench_route SELECT g, 'City' || g, 'City' || (g + 1), 100 + g FROM generate_series(1, " + ROUTES + ") g");
+            statement.execute("INSERT INTO bench_trip SELECT g, 1 + g % 2000, 1 + g % " + ROUTES + ", 1 + g % 100, 1 + (g + 1) % 100,"
+                    + " timestamp '2025-01-01' + (g % 525600) * interval '1 minute',"
+                    + " timestamp '2025-01-01' + (g % 525600) * interval '1 minute' + interval '4 hours',"
+                    + " 1000 + g % 5000, 'SCHEDULED', g % 41, true, now()"
+                    + " FROM generate_series(1, " + trips + ") g");
+            statement.execute("""
+                    CREATE INDEX ON bench_trip (route_id, departure_time, id);
+                    CREATE INDEX ON bench_trip (departure_time, id);
+                    CREATE INDEX ON bench_route (origin, destination);
+                    ANALYZE""");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // The forked benchmark JVM does not inherit system properties
+        new Runner(new OptionsBuilder()
+                .include(TripSearchBenchmark.class.getSimpleName())
+                .jvmArgsAppend(
+                        "-Dbench.jdbc.url=" + System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/smartbus_bench"),
+                        "-Dbench.jdbc.user=" + System.getProperty("bench.jdbc.user", "postgres"),
+                        "-Dbench.jdbc.password=" + System.getProperty("bench.jdbc.password", "postgres"))
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.service;
+
+import com.example.model.BookingStatus;
+import com.example.repository.BusParkRepository;
+import com.example.repository.RouteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AnalyticsSketchServiceTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AnalyticsSketchService service = new AnalyticsSketchService(mock(RouteRepository.class),
+            mock(BusParkRepository.class), jdbcTemplate, mock(PlatformTransactionManager.class));
+
+    private static BookingStatusChangedEvent confirmed(long bookingId, LocalDateTime at) {
+        return new BookingStatusChangedEvent(bookingId, 1L, 3L, 4L, at.plusDays(1), 10L + bookingId,
+                BookingStatus.PENDING, BookingStatus.CONFIRMED, 1, 1000, at);
+    }
+
+    // Serves one payment row for booking 1 in the current month and fires the events while reading
+    @SuppressWarnings("unchecked")
+    private void readWhileConfirming(LocalDateTime paidAt, BookingStatusChangedEvent... events) {
+        AtomicBoolean served = new AtomicBoolean();
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class))).thenAnswer(invocation -> {
+            boolean serve = !served.getAndSet(true);
+            if (serve) {
+                for (BookingStatusChangedEvent event : events) {
+                    service.onBookingStatusChanged(event);
+                }
+            }
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenReturn(serve, false);
+            when(rs.getObject(1, Long.class)).thenReturn(11L);
+            when(rs.getLong(2)).thenReturn(3L);
+            when(rs.getObject(3, Long.class)).thenReturn(4L);
+            when(rs.getTimestamp(4)).thenReturn(Timestamp.valueOf(paidAt));
+            when(rs.getLong(5)).thenReturn(1L);
+            return ((ResultSetExtractor<Long>) invocation.getArgument(1)).extractData(rs);
+        });
+    }
+
+    private long routeTotal(LocalDate day) {
+        return service.getTopRoutes(day, day, 5).getTotalConfirmations();
+    }
+
+    @Test
+    void confirmationsDuringRebuildAreReplayedOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        // Booking 1 is in the rows read, booking 2 committed after its month was read
+        readWhileConfirming(now, confirmed(1L, now), confirmed(2L, now));
+
+        assertEquals(1, service.rebuild(YearMonth.now()));
+
+        assertEquals(2, routeTotal(now.toLocalDate()));
+    }
+
+    @Test
+    void refreshKeepsOlderBucketsAndReplacesRecentOnes() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime old = now.minusMonths(1);
+        service.onBookingStatusChanged(confirmed(5L, old));
+        service.onBookingStatusChanged(confirmed(6L, now)); // dropped: the rebuild reads booking 1 only
+        readWhileConfirming(now);
+
+        service.rebuild(YearMonth.now());
+
+        assertEquals(1, routeTotal(old.toLocalDate()));
+        assertEquals(1, routeTotal(now.toLocalDate()));
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+    }
+}
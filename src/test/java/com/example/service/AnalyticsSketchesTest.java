@@ -0,0 +1,88 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyticsSketchesTest {
+
+    @Test
+    void hyperLogLogStaysWithinItsErrorBound() {
+        for (int distinct : new int[]{10, 1_000, 100_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < distinct; i++) {
+                sketch.add(i);
+                sketch.add(i); // repeats do not count
+            }
+            double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+            assertTrue(error < 3 * HyperLogLog.RELATIVE_STANDARD_ERROR, distinct + " off by " + error);
+        }
+    }
+
+    @Test
+    void mergedHyperLogLogEstimatesTheUnion() {
+        HyperLogLog january = new HyperLogLog();
+        HyperLogLog february = new HyperLogLog();
+        for (int i = 0; i < 30_000; i++) {
+            january.add(i);
+            february.add(i + 20_000); // 10,000 passengers travel in both months
+        }
+        january.merge(february);
+        double error = Math.abs(january.estimate() - 50_000) / 50_000.0;
+        assertTrue(error < 3 * HyperLogLog.RELATIVE_STANDARD_ERROR, "off by " + error);
+    }
+
+    @Test
+    void spaceSavingKeepsHeavyHittersAndBoundsCounts() {
+        SpaceSaving sketch = new SpaceSaving(8);
+        long[] truth = new long[100];
+        for (int round = 0; round < 50; round++) {
+            for (int route = 0; route < 100; route++) {
+                // Routes 0-2 are busy, the rest see one booking now and then
+                int weight = route < 3 ? 20 - route : (round + route) % 10 == 0 ? 1 : 0;
+                if (weight > 0) {
+                    sketch.add(route, weight);
+                    truth[route] += weight;
+                }
+            }
+        }
+
+        List<SpaceSaving.Item> top = sketch.top(3);
+        assertEquals(List.of(0L, 1L, 2L), top.stream().map(SpaceSaving.Item::item).toList());
+        for (SpaceSaving.Item item : sketch.top(8)) {
+            assertTrue(item.count() >= truth[(int) item.item()]);
+            assertTrue(item.count() - item.error() <= truth[(int) item.item()]);
+            assertTrue(item.error() <= sketch.total() / 8);
+        }
+    }
+
+    @Test
+    void mergedSpaceSavingKeepsUpperBounds() {
+        SpaceSaving monday = new SpaceSaving(4);
+        SpaceSaving tuesday = new SpaceSaving(4);
+        long[] truth = new long[10];
+        for (int i = 0; i < 200; i++) {
+            int route = i % 3 == 0 ? 1 : i % 10;
+            monday.add(route, 1);
+            truth[route]++;
+            int other = i % 2 == 0 ? 7 : i % 10;
+            tuesday.add(other, 1);
+            truth[other]++;
+        }
+        monday.merge(tuesday);
+
+        assertEquals(400, monday.total());
+        for (SpaceSaving.Item item : monday.top(4)) {
+            assertTrue(item.count() >= truth[(int) item.item()]);
+            assertTrue(item.count() - item.error() <= truth[(int) item.item()]);
+        }
+        for (int route = 0; route < 10; route++) {
+            int id = route;
+            if (monday.top(4).stream().noneMatch(item -> item.item() == id)) {
+                assertTrue(truth[route] <= monday.minCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.service;
+
+import com.example.dto.requests.BookingRequest;
+import com.example.dto.responses.BookingResponse;
+import com.example.exception.ConflictException;
+import com.example.mappers.BookingMapper;
+import com.example.model.*;
+import com.example.repository.BookingRepository;
+import com.example.repository.SeatClaimRepository;
+import com.example.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookingConcurrencyTest {
+    private static final int TOTAL_SEATS = 40;
+    private static final int BUYERS = 400;
+
+    private final Map<Integer, Long> claimTable = new ConcurrentHashMap<>();
+    private BookingService bookingService;
+    private TripRepository tripRepository;
+    private BookingRepository bookingRepository;
+    private SeatClaimRepository seatClaimRepository;
+
+    @BeforeEach
+    void setUp() {
+        Bus bus = new Bus();
+        bus.setTotalSeats(TOTAL_SEATS);
+        Route route = new Route();
+        route.setId(3L);
+        Trip trip = new Trip();
+        trip.setId(1L);
+        trip.setBus(bus);
+        trip.setRoute(route);
+        trip.setAmount(10);
+        trip.setStatus(TripStatus.SCHEDULED);
+        trip.setAvailableSeats(TOTAL_SEATS);
+
+        tripRepository = mock(TripRepository.class);
+        when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+
+        bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findSeatNumbersByTripIdAndStatusIn(eq(1L), any())).thenReturn(List.of());
+        AtomicLong ids = new AtomicLong();
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> {
+            Booking booking = inv.getArgument(0);
+            booking.setId(ids.incrementAndGet());
+            return booking;
+        });
+
+        // Behaves like INSERT .. ON CONFLICT DO NOTHING RETURNING seat_number
+        seatClaimRepository = mock(SeatClaimRepository.class);
+        when(seatClaimRepository.claimSeats(anyLong(), anyLong(), anyInt(), anyCollection())).thenAnswer(inv -> {
+            Long bookingId = inv.getArgument(1);
+            Collection<Integer> seats = inv.getArgument(3);
+            List<Integer> claimed = new ArrayList<>();
+            for (Integer seat : seats) {
+                if (claimTable.putIfAbsent(seat, bookingId) == null) {
+                    claimed.add(seat);
+                }
+            }
+            return claimed;
+        });
+        doAnswer(inv -> {
+            Long bookingId = inv.getArgument(0);
+            claimTable.values().removeIf(bookingId::equals);
+            return null;
+        }).when(seatClaimRepository).deleteByBookingId(anyLong());
+
+        CurrentUserService currentUserService = mock(CurrentUserService.class);
+        User user = new User();
+        user.setId(7L);
+        when(currentUserService.getCurrentUser()).thenReturn(user);
+
+        BookingMapper bookingMapper = mock(BookingMapper.class);
+        when(bookingMapper.toBookingResponse(any())).thenAnswer(inv -> {
+            Booking booking = inv.getArgument(0);
+            BookingResponse response = new BookingResponse();
+            response.setId(booking.getId());
+            response.setSeatNumbers(booking.getSeatNumbers());
+            return response;
+        });
+
+        bookingService = new BookingService(
+                bookingRepository,
+                mock(UserService.class),
+                mock(WebSocketService.class),
+                tripRepository,
+                currentUserService,
+                bookingMapper,
+                new SeatInventoryService(tripRepository, bookingRepository),
+                new SeatClaimService(seatClaimRepository),
+                mock(BookingExpiryService.class),
+                new LocalSeatHoldStore(),
+                new TripBookingDispatcher(
+                        new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                        tripRepository,
+                        mock(WebSocketService.class),
+                        mock(TimetableIndex.class),
+                        4, 64, 10000, 30000),
+                mock(ApplicationEventPublisher.class)
+        );
+    }
+
+    @Test
+    void parallelBuyersNeverShareASeat() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BookingResponse>> results = new ArrayList<>();
+
+        for (int i = 0; i < BUYERS; i++) {
+            int first = (i % TOTAL_SEATS) + 1;
+            int second = ((i * 7) % TOTAL_SEATS) + 1;
+            List<Integer> seats = first == second ? List.of(first) : List.of(first, second);
+            results.add(pool.submit(() -> {
+                start.await();
+                BookingRequest request = new BookingRequest();
+                request.setTripId(1L);
+                request.setSeatNumbers(seats);
+                return bookingService.createBooking(request);
+            }));
+        }
+        start.countDown();
+
+        Set<Integer> sold = new HashSet<>();
+        int conflicts = 0;
+        for (Future<BookingResponse> result : results) {
+            try {
+                for (Integer seat : result.get(30, TimeUnit.SECONDS).getSeatNumbers()) {
+                    assertTrue(sold.add(seat), "Seat " + seat + " sold twice");
+                }
+            } catch (ExecutionException e) {
+                assertInstanceOf(ConflictException.class, e.getCause());
+                assertTrue(e.getCause().getMessage().startsWith("Seats ["), e.getCause().getMessage());
+                conflicts++;
+            }
+        }
+        pool.shutdown();
+
+        assertTrue(conflicts > 0);
+        assertEquals(sold.size(), claimTable.size());
+        verify(tripRepository, never()).save(any());
+        // Counter updates are batched per trip, never more than one per booking
+        verify(tripRepository, atMost(sold.size())).adjustAvailableSeats(eq(1L), anyInt());
+    }
+
+    @Test
+    void bookingThatLosesTheDatabaseClaimIsUndone() {
+        // Seat 5 was claimed through another instance, this node's seat map and holds have not seen it
+        claimTable.put(5, 999L);
+
+        BookingRequest request = new BookingRequest();
+        request.setTripId(1L);
+        request.setSeatNumbers(List.of(4, 5));
+        ConflictException conflict = assertThrows(ConflictException.class, () -> bookingService.createBooking(request));
+        assertEquals("Seats [5] are already booked", conflict.getMessage());
+
+        // The loser released its own claim on seat 4 and deleted its booking
+        verify(seatClaimRepository).deleteByBookingId(1L);
+        verify(bookingRepository).delete(argThat(booking -> booking.getId() == 1L));
+        assertEquals(Map.of(5, 999L), claimTable);
+        verify(tripRepository, never()).adjustAvailableSeats(anyLong(), anyInt());
+
+        // The seat map was evicted, so the next buyer sees seat 5 from the database
+        when(bookingRepository.findSeatNumbersByTripIdAndStatusIn(eq(1L), any())).thenReturn(List.of(5));
+        request.setSeatNumbers(List.of(5));
+        assertThrows(ConflictException.class, () -> bookingService.createBooking(request));
+        verify(bookingRepository, times(2)).findSeatNumbersByTripIdAndStatusIn(eq(1L), any());
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+
+        // The hold on seat 4 was released, so it can still be sold
+        request.setSeatNumbers(List.of(4));
+        assertEquals(List.of(4), bookingService.createBooking(request).getSeatNumbers());
+        assertEquals(Map.of(4, 2L, 5, 999L), claimTable);
+    }
+}
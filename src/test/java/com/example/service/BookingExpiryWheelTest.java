@@ -0,0 +1,36 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingExpiryWheelTest {
+
+    @Test
+    void releasesBookingsWithinATickOfTheirDeadline() {
+        BookingExpiryWheel wheel = new BookingExpiryWheel(1000, 8, 0);
+        wheel.schedule(1L, 2_500);
+        wheel.schedule(2L, 4_000);
+        wheel.schedule(3L, 20_000); // more than one revolution out
+
+        assertTrue(wheel.advance(2_600).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(3_000));
+        assertEquals(List.of(2L), wheel.advance(4_000));
+        assertTrue(wheel.advance(12_000).isEmpty());
+        assertEquals(List.of(3L), wheel.advance(20_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndOverdueEntries() {
+        BookingExpiryWheel wheel = new BookingExpiryWheel(1000, 8, 10_000);
+        wheel.schedule(1L, 5_000); // already overdue
+        wheel.schedule(2L, 11_000);
+        wheel.cancel(2L);
+
+        assertEquals(List.of(1L), wheel.advance(11_000));
+        assertTrue(wheel.advance(60_000).isEmpty());
+    }
+}
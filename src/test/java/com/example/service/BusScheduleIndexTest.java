@@ -0,0 +1,55 @@
+package com.example.service;
+
+import com.example.repository.BusSlotRow;
+import com.example.repository.TripRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BusScheduleIndexTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private static BusSlotRow slot(long tripId, long busId, int fromHour, int toHour) {
+        return new BusSlotRow(tripId, busId, DAY.plusHours(fromHour), DAY.plusHours(toHour));
+    }
+
+    private static List<Long> conflicts(BusScheduleIndex index, long busId, int fromHour, int toHour, Long exclude) {
+        return index.findConflicts(busId, DAY.plusHours(fromHour), DAY.plusHours(toHour), exclude).stream()
+                .map(BusScheduleIndex.Slot::tripId)
+                .toList();
+    }
+
+    @Test
+    void findsOverlapsOnTheSameBusOnly() {
+        TripRepository tripRepository = mock(TripRepository.class);
+        when(tripRepository.findBusSlots()).thenReturn(List.of(
+                slot(1, 10, 0, 20),   // long overnight run
+                slot(2, 10, 22, 23),
+                slot(3, 11, 8, 12)));
+        BusScheduleIndex index = new BusScheduleIndex(tripRepository);
+        index.load();
+
+        assertEquals(List.of(1L), conflicts(index, 10, 19, 21, null));
+        assertEquals(List.of(), conflicts(index, 10, 20, 22, null)); // touching ends is fine
+        assertEquals(List.of(1L, 2L), conflicts(index, 10, 10, 23, null));
+        assertEquals(List.of(2L), conflicts(index, 10, 10, 23, 1L)); // moving trip 1 itself
+        assertEquals(List.of(3L), conflicts(index, 11, 9, 10, null));
+        assertEquals(List.of(), conflicts(index, 12, 0, 24, null));
+    }
+
+    @Test
+    void dropsCancelledTrips() {
+        TripRepository tripRepository = mock(TripRepository.class);
+        when(tripRepository.findBusSlots()).thenReturn(List.of(slot(1, 10, 8, 12)));
+        BusScheduleIndex index = new BusScheduleIndex(tripRepository);
+        index.load();
+
+        index.remove(1L);
+        assertEquals(List.of(), conflicts(index, 10, 9, 10, null));
+        assertEquals(0, index.size());
+    }
+}
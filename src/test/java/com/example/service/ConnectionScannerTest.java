@@ -0,0 +1,71 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionScannerTest {
+    private static final long HOUR = 3600;
+    private static final long TRANSFER = 15 * 60;
+    private static final long PARK_A = 1, PARK_B = 2, PARK_B2 = 3, PARK_C = 4;
+
+    private static ConnectionScanner.Connection trip(long id, String origin, String destination,
+                                                     long fromPark, long toPark,
+                                                     long departHour, long arriveHour, double price, int seats) {
+        return new ConnectionScanner.Connection(origin, destination,
+                new TimetableEntry(id, fromPark, toPark, departHour * HOUR, arriveHour * HOUR, price, seats));
+    }
+
+    private static List<Long> tripIds(List<ConnectionScanner.Connection> legs) {
+        return legs.stream().map(leg -> leg.entry().tripId()).toList();
+    }
+
+    @Test
+    void changesBusesAtASharedPark() {
+        ConnectionScanner scanner = new ConnectionScanner(List.of(
+                trip(1, "A", "B", PARK_A, PARK_B, 8, 10, 20, 10),
+                trip(2, "B", "C", PARK_B, PARK_C, 11, 13, 20, 10),
+                trip(3, "A", "C", PARK_A, PARK_C, 9, 16, 50, 10)));
+
+        assertEquals(List.of(1L, 2L), tripIds(scanner.earliestArrival("A", "C", 0, 24 * HOUR, 1, TRANSFER)));
+        assertEquals(List.of(1L, 2L), tripIds(scanner.cheapest("A", "C", 0, 24 * HOUR, 1, TRANSFER)));
+    }
+
+    @Test
+    void respectsTransferTimeParksAndSeats() {
+        ConnectionScanner scanner = new ConnectionScanner(List.of(
+                trip(1, "A", "B", PARK_A, PARK_B, 8, 10, 20, 10),
+                trip(2, "B", "C", PARK_B, PARK_C, 10, 12, 20, 10),     // no time to change
+                trip(3, "B", "C", PARK_B2, PARK_C, 11, 12, 20, 10),    // other park in B
+                trip(4, "B", "C", PARK_B, PARK_C, 11, 13, 20, 1),      // too few seats for two
+                trip(5, "B", "C", PARK_B, PARK_C, 12, 14, 20, 10)));
+
+        assertEquals(List.of(1L, 5L), tripIds(scanner.earliestArrival("A", "C", 0, 24 * HOUR, 2, TRANSFER)));
+        assertEquals(List.of(1L, 4L), tripIds(scanner.earliestArrival("A", "C", 0, 24 * HOUR, 1, TRANSFER)));
+    }
+
+    @Test
+    void cheapestTradesTimeForFare() {
+        ConnectionScanner scanner = new ConnectionScanner(List.of(
+                trip(1, "A", "C", PARK_A, PARK_C, 8, 12, 60, 10),
+                trip(2, "A", "B", PARK_A, PARK_B, 8, 10, 15, 10),
+                trip(3, "B", "C", PARK_B, PARK_C, 14, 17, 15, 10),
+                trip(4, "B", "C", PARK_B, PARK_C, 16, 18, 15, 10)));
+
+        assertEquals(List.of(1L), tripIds(scanner.earliestArrival("A", "C", 0, 24 * HOUR, 1, TRANSFER)));
+        assertEquals(List.of(2L, 3L), tripIds(scanner.cheapest("A", "C", 0, 24 * HOUR, 1, TRANSFER)));
+    }
+
+    @Test
+    void firstLegMustLeaveTheOriginInsideTheWindow() {
+        ConnectionScanner scanner = new ConnectionScanner(List.of(
+                trip(1, "A", "C", PARK_A, PARK_C, 7, 9, 20, 10),
+                trip(2, "A", "C", PARK_A, PARK_C, 26, 28, 20, 10)));
+
+        assertEquals(List.of(1L), tripIds(scanner.earliestArrival("A", "C", 6 * HOUR, 24 * HOUR, 1, TRANSFER)));
+        assertTrue(scanner.earliestArrival("A", "C", 8 * HOUR, 24 * HOUR, 1, TRANSFER).isEmpty());
+        assertTrue(scanner.cheapest("A", "X", 0, 24 * HOUR, 1, TRANSFER).isEmpty());
+    }
+}
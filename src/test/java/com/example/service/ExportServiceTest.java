@@ -0,0 +1,85 @@
+package com.example.service;
+
+import com.example.exception.InvalidInputException;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ExportServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 1);
+
+    // Every day returns one row: (id, time, note)
+    @SuppressWarnings("unchecked")
+    private static ExportService serviceReturningOneRowPerDay() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        long[] nextId = {1};
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class))).thenAnswer(call -> {
+            ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+            when(metaData.getColumnCount()).thenReturn(3);
+            when(metaData.getColumnLabel(1)).thenReturn("id");
+            when(metaData.getColumnLabel(2)).thenReturn("booking_time");
+            when(metaData.getColumnLabel(3)).thenReturn("note");
+            long id = nextId[0]++;
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getMetaData()).thenReturn(metaData);
+            when(rs.next()).thenReturn(true, false);
+            when(rs.getObject(1)).thenReturn(id);
+            when(rs.getObject(2)).thenReturn(Timestamp.valueOf(LocalDateTime.of(2030, 1, (int) id, 8, 30)));
+            when(rs.getObject(3)).thenReturn(id == 1 ? "a, \"quoted\" note" : null);
+            return ((ResultSetExtractor<?>) call.getArgument(1)).extractData(rs);
+        });
+        return new ExportService(jdbcTemplate, mock(PlatformTransactionManager.class), 100);
+    }
+
+    @Test
+    void writesCsvWithOneHeaderAcrossDays() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = serviceReturningOneRowPerDay().export(ExportService.Dataset.BOOKINGS, ExportService.Format.CSV,
+                DAY, DAY.plusDays(1), out);
+
+        assertEquals(2, rows);
+        assertEquals("id,booking_time,note\r\n"
+                + "1,2030-01-01T08:30,\"a, \"\"quoted\"\" note\"\r\n"
+                + "2,2030-01-02T08:30,\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writesOneJsonObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serviceReturningOneRowPerDay().export(ExportService.Dataset.BOOKINGS, ExportService.Format.NDJSON,
+                DAY, DAY.plusDays(1), out);
+
+        assertEquals("{\"id\":1,\"booking_time\":\"2030-01-01T08:30\",\"note\":\"a, \\\"quoted\\\" note\"}\n"
+                + "{\"id\":2,\"booking_time\":\"2030-01-02T08:30\",\"note\":null}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void formatsAmountsWithoutExponent() {
+        assertEquals("12000000", ExportService.format(1.2e7));
+        assertEquals("0.5", ExportService.format(0.5));
+        assertNull(ExportService.format(null));
+    }
+
+    @Test
+    void rejectsBadRangesAndNames() {
+        ExportService service = new ExportService(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), 100);
+        assertThrows(InvalidInputException.class, () -> service.validateRange(DAY, DAY.minusDays(1)));
+        assertThrows(InvalidInputException.class, () -> service.validateRange(DAY, DAY.plusDays(400)));
+        assertThrows(InvalidInputException.class, () -> ExportService.Dataset.of("users"));
+        assertEquals(ExportService.Format.NDJSON, ExportService.Format.of("ndjson"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalRefreshTokenStoreTest {
+
+    private static IssuedRefreshToken token(String value, LocalDateTime expiry) {
+        return new IssuedRefreshToken(value, 1L, expiry, "127.0.0.1", "test");
+    }
+
+    @Test
+    void rotateSwapsOldForNew() {
+        LocalRefreshTokenStore store = new LocalRefreshTokenStore();
+        store.save(token("old", LocalDateTime.now().plusDays(1)));
+
+        assertNotNull(store.rotate("old", token("new", LocalDateTime.now().plusDays(1))));
+        assertNull(store.find("old"));
+        assertNotNull(store.find("new"));
+        // The old token cannot be swapped a second time
+        assertNull(store.rotate("old", token("other", LocalDateTime.now().plusDays(1))));
+        assertNull(store.find("other"));
+    }
+
+    @Test
+    void onlyOneConcurrentRotationWins() throws Exception {
+        LocalRefreshTokenStore store = new LocalRefreshTokenStore();
+        store.save(token("old", LocalDateTime.now().plusDays(1)));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger wins = new AtomicInteger();
+        for (int i = 0; i < 32; i++) {
+            String replacement = "new-" + i;
+            pool.submit(() -> {
+                start.await();
+                if (store.rotate("old", token(replacement, LocalDateTime.now().plusDays(1))) != null) {
+                    wins.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, wins.get());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void expiredTokensAreDropped() {
+        LocalRefreshTokenStore store = new LocalRefreshTokenStore();
+        store.save(token("expired", LocalDateTime.now().minusMinutes(1)));
+        store.save(token("live", LocalDateTime.now().plusDays(1)));
+
+        assertNull(store.rotate("expired", token("new", LocalDateTime.now().plusDays(1))));
+        store.save(token("expired-too", LocalDateTime.now().minusMinutes(1)));
+        store.purgeExpired();
+
+        assertEquals(1, store.size());
+        assertNotNull(store.find("live"));
+    }
+}
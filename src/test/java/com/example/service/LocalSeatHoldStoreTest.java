@@ -0,0 +1,57 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalSeatHoldStoreTest {
+    private Instant now = Instant.parse("2026-01-01T08:00:00Z");
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    };
+
+    @Test
+    void holdIsAllOrNothingAndExpires() {
+        SeatHoldStore store = new LocalSeatHoldStore(clock);
+
+        assertTrue(store.hold(1L, List.of(1, 2), "a", Duration.ofMinutes(15)).isEmpty());
+        assertEquals(List.of(2), store.hold(1L, List.of(2, 3), "b", Duration.ofMinutes(15)));
+        assertEquals(Set.of(1, 2), store.heldSeats(1L));
+
+        now = now.plus(Duration.ofMinutes(16));
+        assertTrue(store.heldSeats(1L).isEmpty());
+        assertTrue(store.hold(1L, List.of(2, 3), "b", Duration.ofMinutes(15)).isEmpty());
+    }
+
+    @Test
+    void onlyTheHolderReleases() {
+        SeatHoldStore store = new LocalSeatHoldStore(clock);
+        store.hold(1L, List.of(5), "a", Duration.ofMinutes(15));
+
+        store.release(1L, List.of(5), "b");
+        assertEquals(Set.of(5), store.heldSeats(1L));
+
+        store.release(1L, List.of(5), "a");
+        assertTrue(store.heldSeats(1L).isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.service;
+
+import com.example.model.RouteOccupancyStats;
+import com.example.repository.RouteOccupancyStatsRepository;
+import com.example.repository.RouteRepository;
+import com.example.repository.TripOccupancySnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OccupancyServiceTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    private final TripOccupancySnapshotRepository snapshotRepository = mock(TripOccupancySnapshotRepository.class);
+    private final RouteOccupancyStatsRepository statsRepository = mock(RouteOccupancyStatsRepository.class);
+    private final OccupancyService service = new OccupancyService(snapshotRepository, statsRepository,
+            mock(RouteRepository.class), new TransactionTemplate(mock(PlatformTransactionManager.class)), 90);
+
+    private static RouteOccupancyStats stats(long routeId, String busType, int offsetMinutes, long trips, double mean) {
+        RouteOccupancyStats row = new RouteOccupancyStats();
+        row.setRouteId(routeId);
+        row.setBusType(busType);
+        row.setOffsetMinutes((short) offsetMinutes);
+        row.setTrips(trips);
+        row.setMeanLoad(mean);
+        return row;
+    }
+
+    @Test
+    void snapshotsTripsReachingEachOffset() {
+        when(snapshotRepository.recordSnapshots(anyInt(), any(), any(), any())).thenReturn(2);
+
+        assertEquals(8, service.record(NOW));
+        verify(snapshotRepository).recordSnapshots(10080, NOW, NOW.plusDays(7).minusMinutes(30), NOW.plusDays(7));
+        verify(snapshotRepository).recordSnapshots(1440, NOW, NOW.plusDays(1).minusMinutes(30), NOW.plusDays(1));
+        verify(snapshotRepository).recordSnapshots(60, NOW, NOW.plusMinutes(30), NOW.plusHours(1));
+        verify(snapshotRepository).recordSnapshots(0, NOW, NOW.minusMinutes(30), NOW);
+    }
+
+    @Test
+    void departureLoadIsWeightedByTripsAcrossBusTypes() {
+        when(statsRepository.insertPercentiles(any(), any(), any())).thenReturn(3);
+        when(statsRepository.findAll()).thenReturn(List.of(
+                stats(1, "LUXURY", 0, 10, 0.9),
+                stats(1, "STANDARD", 0, 30, 0.5),
+                stats(1, "STANDARD", 60, 30, 0.1))); // earlier offsets do not count
+
+        assertEquals(3, service.aggregate());
+        InOrder inOrder = inOrder(statsRepository);
+        inOrder.verify(statsRepository).lockForAggregation();
+        inOrder.verify(statsRepository).deleteAllStats();
+        inOrder.verify(statsRepository).insertPercentiles(any(), any(), any());
+        assertEquals(0.6, service.getDepartureLoad(1L), 1e-9);
+        assertNull(service.getDepartureLoad(2L));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.service;
+
+import com.example.dto.responses.PeakHourDTO;
+import com.example.model.BookingStatus;
+import com.example.repository.BookingHourBucketRepository;
+import com.example.repository.HourTotal;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PeakHourServiceTest {
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 3, 4, 17, 45);
+
+    private final BookingHourBucketRepository bucketRepository = mock(BookingHourBucketRepository.class);
+    private final PeakHourService service = new PeakHourService(bucketRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+    private static BookingStatusChangedEvent booked(Long parkId, BookingStatus previous, int seats, LocalDateTime at) {
+        return new BookingStatusChangedEvent(1L, 2L, 3L, parkId, DEPARTURE, 9L, previous, BookingStatus.PENDING,
+                seats, 1000, at);
+    }
+
+    @Test
+    void bookingsAreBucketedByDepartureDateHourRouteAndPark() {
+        assertEquals(new PeakHourService.BucketKey(DEPARTURE.toLocalDate(), 17, 3L, 4L),
+                PeakHourService.bucketOf(booked(4L, null, 1, LocalDateTime.now())));
+        assertEquals(0L, PeakHourService.bucketOf(booked(null, null, 1, LocalDateTime.now())).departureParkId());
+
+        LocalDateTime now = LocalDateTime.now();
+        service.onBookingStatusChanged(booked(4L, null, 2, now));
+        service.onBookingStatusChanged(booked(4L, null, 3, now.minusMinutes(5))); // same bucket, another minute
+        service.onBookingStatusChanged(booked(4L, BookingStatus.PENDING, 2, now)); // not a new booking
+        service.flush();
+
+        verify(bucketRepository).addToBucket(DEPARTURE.toLocalDate(), 17, 3L, 4L, 2, 5);
+        verifyNoMoreInteractions(bucketRepository);
+    }
+
+    @Test
+    void failedFlushKeepsCountsForTheNextRun() {
+        when(bucketRepository.addToBucket(any(), anyInt(), any(), any(), anyLong(), anyLong()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(1);
+        service.onBookingStatusChanged(booked(4L, null, 2, LocalDateTime.now()));
+
+        service.flush();
+        service.flush();
+        service.flush(); // nothing left
+
+        verify(bucketRepository, times(2)).addToBucket(DEPARTURE.toLocalDate(), 17, 3L, 4L, 1, 2);
+    }
+
+    @Test
+    void peakHoursCoverAllTwentyFourHours() {
+        LocalDate day = DEPARTURE.toLocalDate();
+        when(bucketRepository.sumByHour(day, day, null, null))
+                .thenReturn(List.of(new HourTotal(7, 12L), new HourTotal(17, 30L)));
+
+        List<PeakHourDTO> hours = service.getPeakHours(day, day, null, null);
+
+        assertEquals(24, hours.size());
+        for (int hour = 0; hour < 24; hour++) {
+            assertEquals(hour, hours.get(hour).getHour());
+            assertEquals(hour == 7 ? 12 : hour == 17 ? 30 : 0, hours.get(hour).getCount());
+        }
+    }
+
+    @Test
+    void rebuildDropsPendingCountsForBookingsItRead() {
+        LocalDate day = DEPARTURE.toLocalDate();
+        service.onBookingStatusChanged(booked(4L, null, 2, LocalDateTime.now().minusMinutes(2))); // read by the rebuild
+        when(bucketRepository.insertFromBookings(any(), any(), any())).thenAnswer(invocation -> {
+            // Made after the cutoff, so not in the rows the rebuild reads
+            service.onBookingStatusChanged(booked(4L, null, 3, LocalDateTime.now().plusMinutes(1)));
+            return 1;
+        });
+
+        service.rebuild(day, day);
+        service.flush();
+
+        verify(bucketRepository).deleteByDateRange(day, day);
+        verify(bucketRepository).addToBucket(day, 17, 3L, 4L, 1, 3);
+        verify(bucketRepository, never()).addToBucket(day, 17, 3L, 4L, 2, 5);
+        verify(bucketRepository, never()).addToBucket(day, 17, 3L, 4L, 1, 2);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.service;
+
+import com.example.model.TripStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RedisTripEventRelayTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final TripStatusChangedEvent event = new TripStatusChangedEvent(5L, TripStatus.SCHEDULED,
+            TripStatus.IN_PROGRESS, LocalDateTime.of(2026, 1, 1, 8, 0));
+
+    private RedisTripEventRelay relay(ApplicationEventPublisher publisher) {
+        return new RedisTripEventRelay(redisTemplate, mock(RedisConnectionFactory.class), publisher, objectMapper);
+    }
+
+    @Test
+    void otherNodesReceiveTheEventAsRemote() throws Exception {
+        ApplicationEventPublisher origin = mock(ApplicationEventPublisher.class);
+        ApplicationEventPublisher other = mock(ApplicationEventPublisher.class);
+        RedisTripEventRelay sender = relay(origin);
+        RedisTripEventRelay receiver = relay(other);
+
+        sender.publish(event);
+        verify(origin).publishEvent(event);
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("smartbus:trip-events"), json.capture());
+
+        receiver.deliver(json.getValue().getBytes());
+        verify(other).publishEvent(event.asRemote());
+        assertTrue(event.asRemote().remote());
+
+        // The sender already delivered its own copy
+        sender.deliver(json.getValue().getBytes());
+        verify(origin, times(1)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void relayFailureStillDeliversLocally() {
+        ApplicationEventPublisher origin = mock(ApplicationEventPublisher.class);
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenThrow(new IllegalStateException("down"));
+
+        relay(origin).publish(event);
+
+        verify(origin).publishEvent(event);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.service;
+
+import com.example.model.BookingStatus;
+import com.example.repository.BookingRepository;
+import com.example.repository.BookingStatusView;
+import com.example.repository.RouteBookingTotals;
+import com.example.repository.RouteTripTotals;
+import com.example.repository.TripRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RouteStatsServiceTest {
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private final RouteStatsService service = new RouteStatsService(bookingRepository, tripRepository,
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+    private static BookingStatusChangedEvent event(long bookingId, BookingStatus from, BookingStatus to) {
+        return new BookingStatusChangedEvent(bookingId, 1L, 3L, 4L, LocalDateTime.now().plusDays(1), 9L,
+                from, to, 2, 5000, LocalDateTime.now());
+    }
+
+    @Test
+    void eventsMoveBookingsBetweenStatuses() {
+        service.onBookingStatusChanged(event(1L, null, BookingStatus.PENDING));
+        service.onBookingStatusChanged(event(2L, null, BookingStatus.PENDING));
+        service.onBookingStatusChanged(event(1L, BookingStatus.PENDING, BookingStatus.CONFIRMED));
+        service.onBookingStatusChanged(event(2L, BookingStatus.PENDING, BookingStatus.EXPIRED));
+        service.tripsAdded(3L, List.of(11L, 12L), 40);
+
+        RouteStatsService.RouteStats stats = service.get(3L);
+        assertEquals(0, stats.pendingBookings());
+        assertEquals(1, stats.confirmedBookings());
+        assertEquals(1, stats.expiredBookings());
+        assertEquals(2, stats.totalBookings());
+        assertEquals(5000, stats.confirmedRevenue(), 0.001);
+        assertEquals(2, stats.confirmedSeats());
+        assertEquals(2, stats.trips());
+        assertEquals(80, stats.offeredSeats());
+
+        service.onBookingStatusChanged(event(1L, BookingStatus.CONFIRMED, BookingStatus.CANCELLED));
+        stats = service.get(3L);
+        assertEquals(0, stats.confirmedBookings());
+        assertEquals(0, stats.confirmedRevenue(), 0.001);
+        assertEquals(0, stats.confirmedSeats());
+        assertSame(RouteStatsService.RouteStats.EMPTY, service.get(99L));
+    }
+
+    @Test
+    void reconcileReplacesCountersAndReportsDrift() {
+        when(bookingRepository.sumByRouteAndStatus()).thenReturn(List.of(
+                new RouteBookingTotals(3L, BookingStatus.CONFIRMED, 4L, 20000.0)));
+        when(bookingRepository.sumSeatsByRoute(BookingStatus.CONFIRMED)).thenReturn(List.of(new RouteTripTotals(3L, 1L, 8L)));
+        when(tripRepository.sumTripsByRoute()).thenReturn(List.of(new RouteTripTotals(3L, 1L, 40L)));
+
+        assertEquals(0, service.reconcile()); // first load, nothing to compare with
+        assertEquals(4, service.get(3L).confirmedBookings());
+
+        service.onBookingStatusChanged(event(5L, null, BookingStatus.PENDING)); // lost on the database side
+        assertEquals(1, service.reconcile());
+        assertEquals(0, service.get(3L).pendingBookings());
+    }
+
+    private static BookingStatusView status(long bookingId, BookingStatus status) {
+        BookingStatusView view = mock(BookingStatusView.class);
+        when(view.getId()).thenReturn(bookingId);
+        when(view.getStatus()).thenReturn(status);
+        return view;
+    }
+
+    @Test
+    void updatesTheSnapshotMissedAreReplayed() {
+        when(bookingRepository.sumByRouteAndStatus()).thenAnswer(invocation -> {
+            // Arrive while the reconcile is reading
+            service.onBookingStatusChanged(event(6L, null, BookingStatus.PENDING));
+            service.tripsAdded(3L, List.of(21L), 40);
+            return List.of(new RouteBookingTotals(3L, BookingStatus.CONFIRMED, 4L, 20000.0));
+        });
+        when(bookingRepository.sumSeatsByRoute(BookingStatus.CONFIRMED)).thenReturn(List.of());
+        when(tripRepository.sumTripsByRoute()).thenReturn(List.of(new RouteTripTotals(3L, 1L, 40L)));
+        // Committed after the snapshot, so the snapshot has neither of them
+        when(bookingRepository.findStatusByIdIn(Set.of(6L))).thenReturn(List.of());
+        when(tripRepository.findIdsByIdIn(List.of(21L))).thenReturn(List.of());
+
+        service.reconcile();
+
+        RouteStatsService.RouteStats stats = service.get(3L);
+        assertEquals(4, stats.confirmedBookings());
+        assertEquals(1, stats.pendingBookings());
+        assertEquals(2, stats.trips());
+        assertEquals(80, stats.offeredSeats());
+    }
+
+    @Test
+    void updatesTheSnapshotAlreadyReadAreCountedOnce() {
+        when(bookingRepository.sumByRouteAndStatus()).thenAnswer(invocation -> {
+            // Committed before the snapshot, but their events arrive while the reconcile is reading
+            service.onBookingStatusChanged(event(7L, null, BookingStatus.PENDING));
+            service.onBookingStatusChanged(event(7L, BookingStatus.PENDING, BookingStatus.CONFIRMED));
+            service.onBookingStatusChanged(event(8L, null, BookingStatus.PENDING));
+            // Committed after the snapshot
+            service.onBookingStatusChanged(event(8L, BookingStatus.PENDING, BookingStatus.CONFIRMED));
+            service.tripsAdded(3L, List.of(21L), 40);
+            return List.of(new RouteBookingTotals(3L, BookingStatus.CONFIRMED, 5L, 25000.0),
+                    new RouteBookingTotals(3L, BookingStatus.PENDING, 1L, 5000.0));
+        });
+        when(bookingRepository.sumSeatsByRoute(BookingStatus.CONFIRMED)).thenReturn(List.of(new RouteTripTotals(3L, 2L, 10L)));
+        when(tripRepository.sumTripsByRoute()).thenReturn(List.of(new RouteTripTotals(3L, 2L, 80L)));
+        List<BookingStatusView> read = List.of(status(7L, BookingStatus.CONFIRMED), status(8L, BookingStatus.PENDING));
+        when(bookingRepository.findStatusByIdIn(Set.of(7L, 8L))).thenReturn(read);
+        when(tripRepository.findIdsByIdIn(List.of(21L))).thenReturn(List.of(21L));
+
+        service.reconcile();
+
+        RouteStatsService.RouteStats stats = service.get(3L);
+        assertEquals(6, stats.confirmedBookings());
+        assertEquals(0, stats.pendingBookings());
+        assertEquals(30000, stats.confirmedRevenue(), 0.001);
+        assertEquals(12, stats.confirmedSeats());
+        assertEquals(2, stats.trips());
+        assertEquals(80, stats.offeredSeats());
+    }
+}
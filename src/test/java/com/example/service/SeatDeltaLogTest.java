@@ -0,0 +1,38 @@
+package com.example.service;
+
+import com.example.dto.responses.SeatUpdateMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatDeltaLogTest {
+
+    @Test
+    void returnsMissedDeltasInOrder() {
+        SeatDeltaLog log = new SeatDeltaLog(1L, 4, 100);
+        log.append(Map.of(1, false));
+        log.append(Map.of(2, false));
+        log.append(Map.of(1, true));
+
+        List<SeatUpdateMessage> deltas = log.since(101);
+        assertEquals(List.of(102L, 103L), deltas.stream().map(SeatUpdateMessage::getSequence).toList());
+        assertEquals(Map.of(1, true), deltas.get(1).getSeatUpdates());
+        assertTrue(log.since(103).isEmpty());
+    }
+
+    @Test
+    void asksForASnapshotWhenTooFarBehindOrFromAnotherLog() {
+        SeatDeltaLog log = new SeatDeltaLog(1L, 4, 100);
+        for (int i = 1; i <= 6; i++) {
+            log.append(Map.of(i, false));
+        }
+
+        assertNotNull(log.since(102)); // 103..106 still in the ring
+        assertNull(log.since(101));
+        assertNull(log.since(99));
+        assertNull(log.since(500)); // sequence from before a restart
+    }
+}
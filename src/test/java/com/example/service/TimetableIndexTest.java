@@ -0,0 +1,69 @@
+package com.example.service;
+
+import com.example.repository.TimetableRow;
+import com.example.repository.TripRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TimetableIndexTest {
+    private static final LocalDate TOMORROW = LocalDate.now().plusDays(1);
+
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private final TimetableIndex index = new TimetableIndex(tripRepository, new SimpleMeterRegistry());
+
+    private static TimetableRow row(long tripId, int seats) {
+        LocalDateTime departure = TOMORROW.atTime(8, 0);
+        return new TimetableRow(tripId, "Kigali", "Huye", 1L, 2L, departure, departure.plusHours(2), 3000, seats);
+    }
+
+    private int seats(long tripId) {
+        return index.find("Kigali", "Huye", TOMORROW).stream()
+                .filter(entry -> entry.tripId() == tripId)
+                .findFirst().orElseThrow().availableSeats();
+    }
+
+    @Test
+    void seatChangesDuringRebuildAreKept() {
+        when(tripRepository.findTimetableRows(any())).thenReturn(List.of(row(1L, 30)));
+        index.rebuild();
+
+        // Booked while the next rebuild is loading, after its snapshot was read
+        when(tripRepository.findTimetableRows(any())).thenAnswer(invocation -> {
+            index.adjustSeats(1L, -2);
+            return List.of(row(1L, 30));
+        });
+        index.rebuild();
+
+        assertEquals(28, seats(1L));
+    }
+
+    @Test
+    void seatChangesForTripsNotYetIndexedAreReplayed() {
+        when(tripRepository.findTimetableRows(any())).thenAnswer(invocation -> {
+            index.adjustSeats(2L, -3);
+            return List.of(row(2L, 40));
+        });
+        index.rebuild();
+
+        assertEquals(37, seats(2L));
+    }
+
+    @Test
+    void seatChangesOutsideRebuildApplyDirectly() {
+        when(tripRepository.findTimetableRows(any())).thenReturn(List.of(row(1L, 30)));
+        index.rebuild();
+        index.adjustSeats(1L, 4);
+        index.adjustSeats(9L, 1); // not listed, ignored
+
+        assertEquals(34, seats(1L));
+        assertEquals(1, index.size());
+    }
+}
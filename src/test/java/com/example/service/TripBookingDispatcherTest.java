@@ -0,0 +1,70 @@
+package com.example.service;
+
+import com.example.exception.ServiceBusyException;
+import com.example.repository.TripRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TripBookingDispatcherTest {
+    private final TripBookingDispatcher dispatcher = new TripBookingDispatcher(
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(TripRepository.class),
+            mock(WebSocketService.class), mock(TimetableIndex.class), 1, 64, 100, 200);
+
+    @AfterEach
+    void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    private Thread occupyWorker(CountDownLatch running, CountDownLatch release) {
+        Thread caller = new Thread(() -> dispatcher.execute(1L, batch -> {
+            running.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        caller.start();
+        return caller;
+    }
+
+    @Test
+    void timedOutCommandNeverRuns() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread blocker = occupyWorker(running, release);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger applied = new AtomicInteger();
+        assertThrows(ServiceBusyException.class, () -> dispatcher.execute(1L, batch -> applied.incrementAndGet()));
+
+        release.countDown();
+        blocker.join(5000);
+        // The worker has drained the mailbox by the time this runs
+        assertEquals("done", dispatcher.execute(1L, batch -> "done"));
+        assertEquals(0, applied.get());
+    }
+
+    @Test
+    void callerWaitsForACommandThatAlreadyStarted() {
+        // Takes longer than the 200 ms timeout once the worker has picked it up
+        String result = dispatcher.execute(1L, batch -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "written";
+        });
+        assertEquals("written", result);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripSeatMapTest {
+
+    @Test
+    void claimIsAllOrNothing() {
+        TripSeatMap seatMap = new TripSeatMap(1L, 70, true, List.of(3, 65));
+
+        assertEquals(List.of(3), seatMap.tryClaim(List.of(2, 3)));
+        assertFalse(seatMap.isTaken(2));
+
+        assertTrue(seatMap.tryClaim(List.of(2, 64)).isEmpty());
+        assertTrue(seatMap.isTaken(64));
+        assertEquals(66, seatMap.getAvailableSeats());
+    }
+
+    @Test
+    void abandonedClaimFreesSeats() {
+        TripSeatMap seatMap = new TripSeatMap(1L, 10, true, List.of());
+
+        seatMap.tryClaim(List.of(4, 5));
+        seatMap.abandon(List.of(4, 5));
+
+        assertEquals(10, seatMap.getAvailableSeats());
+    }
+
+    @Test
+    void diffReportsDriftAgainstDatabase() {
+        TripSeatMap seatMap = new TripSeatMap(1L, 130, true, List.of(1, 64, 129));
+        seatMap.tryClaim(List.of(7));
+        seatMap.commit(List.of(7));
+
+        assertEquals(List.of(7, 64, 100), seatMap.diff(List.of(1, 100, 129)));
+
+        seatMap.resync(List.of(1, 100, 129));
+        assertTrue(seatMap.diff(List.of(1, 100, 129)).isEmpty());
+        assertFalse(seatMap.toSeatStatus().get(100));
+    }
+}
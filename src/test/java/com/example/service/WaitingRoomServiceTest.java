@@ -0,0 +1,55 @@
+package com.example.service;
+
+import com.example.dto.responses.WaitingRoomStatus;
+import com.example.exception.AdmissionRequiredException;
+import com.example.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WaitingRoomServiceTest {
+    private final WebSocketService webSocketService = mock(WebSocketService.class);
+    private final WaitingRoomService service = new WaitingRoomService(new LocalWaitingRoomStore(),
+            webSocketService, new SimpleMeterRegistry(), 1, 10);
+
+    @Test
+    void admitsInOrderAtTheRoomRate() {
+        service.open(7L, null);
+        WaitingRoomStatus first = service.join(7L, 1L);
+        WaitingRoomStatus second = service.join(7L, 2L);
+        assertEquals(1, first.getPosition());
+        assertEquals(2, second.getPosition());
+        assertEquals(first.getTicket(), service.join(7L, 1L).getTicket());
+
+        service.admit();
+
+        assertTrue(service.getStatus(7L, first.getTicket(), 1L).isAdmitted());
+        assertFalse(service.getStatus(7L, second.getTicket(), 2L).isAdmitted());
+        assertEquals(1, service.getStatus(7L, second.getTicket(), 2L).getPosition());
+        verify(webSocketService).sendWaitingRoomUpdate(any());
+        assertDoesNotThrow(() -> service.checkAdmission(7L, first.getTicket(), 1L));
+        assertThrows(AdmissionRequiredException.class, () -> service.checkAdmission(7L, second.getTicket(), 2L));
+    }
+
+    @Test
+    void ticketsOnlyAdmitTheirOwner() {
+        service.open(7L, 5);
+        WaitingRoomStatus ticket = service.join(7L, 1L);
+        service.admit();
+
+        assertThrows(AdmissionRequiredException.class, () -> service.checkAdmission(7L, ticket.getTicket(), 2L));
+        assertThrows(AdmissionRequiredException.class, () -> service.checkAdmission(7L, null, 1L));
+        assertThrows(ResourceNotFoundException.class, () -> service.getStatus(7L, ticket.getTicket(), 2L));
+    }
+
+    @Test
+    void tripsWithoutRoomAreNotGated() {
+        assertDoesNotThrow(() -> service.checkAdmission(8L, null, 1L));
+        service.open(8L, 5);
+        service.close(8L);
+        assertDoesNotThrow(() -> service.checkAdmission(8L, null, 1L));
+    }
+}